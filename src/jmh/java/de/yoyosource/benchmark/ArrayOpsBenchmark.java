@@ -0,0 +1,104 @@
+package de.yoyosource.benchmark;
+
+import de.yoyosource.data.impl.ArrayOps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ArrayOpsBenchmark {
+
+    @Param({"scalar", "vector"})
+    public String backend;
+
+    @Param({"1024", "65536"})
+    public int length;
+
+    private ArrayOps ops;
+    private double[] values;
+    private double[] operand;
+
+    @Setup
+    public void setup() {
+        ops = backend.equals("vector") ? ArrayOps.get() : ArrayOps.scalar();
+        if (backend.equals("vector") && !ops.vectorized()) {
+            throw new IllegalStateException("jdk.incubator.vector is not available");
+        }
+        SplittableRandom random = new SplittableRandom(1);
+        values = new double[length];
+        operand = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextDouble(256);
+            operand[i] = random.nextDouble(1, 256);
+        }
+    }
+
+    @Benchmark
+    public double[] add() {
+        ops.add(values, 0, length, 1.0);
+        return values;
+    }
+
+    @Benchmark
+    public double[] multiply() {
+        ops.multiply(values, 0, length, 1.0);
+        return values;
+    }
+
+    @Benchmark
+    public double[] divide() {
+        ops.divide(values, 0, length, 1.0);
+        return values;
+    }
+
+    @Benchmark
+    public double[] clamp() {
+        ops.clamp(values, 0, length, 0, 255);
+        return values;
+    }
+
+    @Benchmark
+    public double[] minCutOff() {
+        ops.minCutOff(values, 0, length, -1, 0);
+        return values;
+    }
+
+    @Benchmark
+    public double[] invert() {
+        ops.invert(values, 0, length, 255);
+        ops.invert(values, 0, length, 255);
+        return values;
+    }
+
+    @Benchmark
+    public double[] maxRaster() {
+        ops.max(values, 0, operand, length);
+        return values;
+    }
+
+    @Benchmark
+    public double reduceMin() {
+        return ops.reduceMin(values, 0, length, Double.POSITIVE_INFINITY);
+    }
+
+    @Benchmark
+    public double reduceMax() {
+        return ops.reduceMax(values, 0, length, Double.NEGATIVE_INFINITY);
+    }
+}
@@ -0,0 +1,47 @@
+package de.yoyosource.benchmark;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Raster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BlurBenchmark {
+
+    @Param({"256", "1024", "2048"})
+    public int size;
+
+    @Param({"1", "5", "20", "64"})
+    public int radius;
+
+    @Param({"BOX", "GAUSSIAN", "FAST_GAUSSIAN"})
+    public BlurMode mode;
+
+    private Raster raster;
+
+    @Setup
+    public void setup() {
+        raster = Rasters.random(size, size, 1);
+    }
+
+    @Benchmark
+    public Raster gaussianBlur() {
+        return Rasters.materialize(raster.gaussianBlur(radius, mode));
+    }
+}
@@ -0,0 +1,62 @@
+package de.yoyosource.benchmark;
+
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.Raster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class EvalBenchmark {
+
+    @Param({"256", "1024", "2048"})
+    public int size;
+
+    @Param({"1", "4", "16"})
+    public int chain;
+
+    @Param({"BYTE", "FLOAT", "DOUBLE"})
+    public Precision precision;
+
+    private Raster fused;
+
+    @Setup
+    public void setup() {
+        Raster raster = Rasters.random(size, size, 1);
+        for (int i = 0; i < chain; i++) {
+            raster = i % 2 == 0 ? raster.multiply(1.01) : raster.add(-0.5);
+        }
+        fused = raster.clamp(0, 255);
+    }
+
+    @Benchmark
+    public Raster eval() {
+        Raster evaluated = fused.eval(precision);
+        evaluated.get(0);
+        return evaluated;
+    }
+
+    @Benchmark
+    public double streamed() {
+        double sum = 0;
+        for (int i = 0; i < fused.width() * fused.height(); i++) {
+            sum += fused.get(i);
+        }
+        return sum;
+    }
+}
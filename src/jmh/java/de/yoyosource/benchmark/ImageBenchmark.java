@@ -0,0 +1,90 @@
+package de.yoyosource.benchmark;
+
+import de.yoyosource.data.Image;
+import de.yoyosource.data.impl.ImageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ImageBenchmark {
+
+    @Param({"256", "1024", "2048"})
+    public int size;
+
+    @Param({"INT_ARGB", "3BYTE_BGR", "BYTE_GRAY"})
+    public String type;
+
+    private BufferedImage source;
+    private Image image;
+    private Image mapped;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        source = Rasters.image(size, size, type(type), 1);
+        image = new ImageImpl(source);
+        mapped = image.map(raster -> raster.multiply(1.2).clamp(0, 255));
+        file = Files.createTempFile("benchmark", ".png").toFile();
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public Image construct() {
+        return new ImageImpl(source);
+    }
+
+    @Benchmark
+    public Image eval() {
+        return mapped.eval();
+    }
+
+    @Benchmark
+    public File write() {
+        image.write(file);
+        return file;
+    }
+
+    @Benchmark
+    public File writeMapped() {
+        mapped.write(file);
+        return file;
+    }
+
+    private static int type(String type) {
+        switch (type) {
+            case "INT_ARGB":
+                return BufferedImage.TYPE_INT_ARGB;
+            case "3BYTE_BGR":
+                return BufferedImage.TYPE_3BYTE_BGR;
+            case "BYTE_GRAY":
+                return BufferedImage.TYPE_BYTE_GRAY;
+            default:
+                throw new IllegalArgumentException(type);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.yoyosource.benchmark;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.impl.Parallel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ParallelScalingBenchmark {
+
+    @Param({"2048"})
+    public int size;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private Raster raster;
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(threads);
+        Parallel.setExecutor(pool);
+        raster = Rasters.random(size, size, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Parallel.setExecutor(ForkJoinPool.commonPool());
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Raster pointwise() {
+        return Rasters.materialize(raster.multiply(1.5).add(3).clamp(0, 255));
+    }
+
+    @Benchmark
+    public Raster blur() {
+        return Rasters.materialize(raster.gaussianBlur(20, BlurMode.BOX));
+    }
+}
@@ -0,0 +1,163 @@
+package de.yoyosource.benchmark;
+
+import de.yoyosource.data.Raster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class RasterOperatorBenchmark {
+
+    @Param({"256", "1024", "2048"})
+    public int size;
+
+    private Raster raster;
+    private Raster operand;
+    private Raster lower;
+    private Raster upper;
+
+    @Setup
+    public void setup() {
+        raster = Rasters.random(size, size, 1);
+        operand = Rasters.random(size, size, 2).add(1);
+        lower = Rasters.materialize(Rasters.random(size, size, 3).multiply(0.25));
+        upper = lower.add(128);
+        operand = Rasters.materialize(operand);
+        upper = Rasters.materialize(upper);
+    }
+
+    @Benchmark
+    public Raster add() {
+        return Rasters.materialize(raster.add(1.5));
+    }
+
+    @Benchmark
+    public Raster subtract() {
+        return Rasters.materialize(raster.subtract(1.5));
+    }
+
+    @Benchmark
+    public Raster multiply() {
+        return Rasters.materialize(raster.multiply(1.5));
+    }
+
+    @Benchmark
+    public Raster divide() {
+        return Rasters.materialize(raster.divide(1.5));
+    }
+
+    @Benchmark
+    public Raster mod() {
+        return Rasters.materialize(raster.mod(7));
+    }
+
+    @Benchmark
+    public Raster clamp() {
+        return Rasters.materialize(raster.clamp(32, 224));
+    }
+
+    @Benchmark
+    public Raster min() {
+        return Rasters.materialize(raster.min(128));
+    }
+
+    @Benchmark
+    public Raster minCutOff() {
+        return Rasters.materialize(raster.min(128, 0));
+    }
+
+    @Benchmark
+    public Raster max() {
+        return Rasters.materialize(raster.max(128));
+    }
+
+    @Benchmark
+    public Raster maxCutOff() {
+        return Rasters.materialize(raster.max(128, 1));
+    }
+
+    @Benchmark
+    public Raster addRaster() {
+        return Rasters.materialize(raster.add(operand));
+    }
+
+    @Benchmark
+    public Raster subtractRaster() {
+        return Rasters.materialize(raster.subtract(operand));
+    }
+
+    @Benchmark
+    public Raster multiplyRaster() {
+        return Rasters.materialize(raster.multiply(operand));
+    }
+
+    @Benchmark
+    public Raster divideRaster() {
+        return Rasters.materialize(raster.divide(operand));
+    }
+
+    @Benchmark
+    public Raster modRaster() {
+        return Rasters.materialize(raster.mod(operand));
+    }
+
+    @Benchmark
+    public Raster clampRaster() {
+        return Rasters.materialize(raster.clamp(lower, upper));
+    }
+
+    @Benchmark
+    public Raster minRaster() {
+        return Rasters.materialize(raster.min(operand));
+    }
+
+    @Benchmark
+    public Raster maxRaster() {
+        return Rasters.materialize(raster.max(operand));
+    }
+
+    @Benchmark
+    public Raster normalize() {
+        return Rasters.materialize(raster.normalize());
+    }
+
+    @Benchmark
+    public Raster invert() {
+        return Rasters.materialize(raster.invert());
+    }
+
+    @Benchmark
+    public Raster edges() {
+        return Rasters.materialize(raster.edges(100));
+    }
+
+    @Benchmark
+    public double average() {
+        return raster.add(0).average();
+    }
+
+    @Benchmark
+    public double minimum() {
+        return raster.add(0).min();
+    }
+
+    @Benchmark
+    public double maximum() {
+        return raster.add(0).max();
+    }
+}
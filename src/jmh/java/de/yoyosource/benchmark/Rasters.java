@@ -0,0 +1,42 @@
+package de.yoyosource.benchmark;
+
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.impl.DoubleStorage;
+import de.yoyosource.data.impl.RasterImpl;
+
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+public final class Rasters {
+
+    private Rasters() {
+    }
+
+    public static Raster random(int width, int height, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] data = new double[width * height];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextDouble(256);
+        }
+        return new RasterImpl(new DoubleStorage(width, height, data));
+    }
+
+    public static BufferedImage image(int width, int height, int type, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int blob = ((x / 32) + (y / 32)) % 2 == 0 ? 0x40 : 0xC0;
+                int noise = random.nextInt(32);
+                image.setRGB(x, y, 0xFF000000 | (blob + noise) << 16 | (blob - noise) << 8 | (x ^ y) & 0xFF);
+            }
+        }
+        return image;
+    }
+
+    public static Raster materialize(Raster raster) {
+        Raster evaluated = raster.eval();
+        evaluated.get(0);
+        return evaluated;
+    }
+}
@@ -2,7 +2,9 @@ package de.yoyosource;
 
 import de.yoyosource.data.Image;
 import de.yoyosource.data.Raster;
+import de.yoyosource.data.impl.BatchProcessor;
 import de.yoyosource.data.impl.ImageImpl;
+import de.yoyosource.pipeline.Pipeline;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -10,8 +12,18 @@ import java.io.File;
 
 public class Main {
     public static void main(String[] args) throws Exception {
-        BufferedImage bufferedImage = ImageIO.read(Main.class.getResourceAsStream("/NewYear2023-1.png"));
+        if (args.length == 3) {
+            Pipeline pipeline = Pipeline.compile(new File(args[0]));
+            BatchProcessor.Result result = new BatchProcessor(new File(args[1]), new File(args[2]), pipeline::run)
+                    .run(progress -> System.out.print("\r" + progress));
+            System.out.println();
+            result.failures().forEach((file, t) -> System.err.println(file + ": " + t));
+            return;
+        }
+        run(ImageIO.read(Main.class.getResourceAsStream("/NewYear2023-1.png")), new File("."));
+    }
 
+    public static void run(BufferedImage bufferedImage, File directory) {
         Image image = new ImageImpl(bufferedImage);
         Raster lightRaster = image.lightness()
                 .min(200, 0)
@@ -23,27 +35,27 @@ public class Main {
                 .eval();
 
         image.map(raster -> raster.multiply(lightRaster).clamp(0, 255))
-                .write(new File("output.png"));
+                .write(new File(directory, "output.png"));
         Raster lightRaster2 = lightRaster.eval().multiply(255);
         image.map(raster -> lightRaster2)
-                .write(new File("output-1.png"));
+                .write(new File(directory, "output-1.png"));
 
         Raster edges = image.lightness()
                 .edges(100)
                 .invert()
                 .eval();
         image.map(raster -> edges.multiply(255).clamp(0, 255))
-                .write(new File("output-2.png"));
+                .write(new File(directory, "output-2.png"));
         image.map(raster -> raster.multiply(edges).multiply(lightRaster).clamp(0, 255))
-                .write(new File("output-3.png"));
+                .write(new File(directory, "output-3.png"));
 
         Raster edgesOfEdges = image.lightness().edges(100).multiply(255).edges(100).invert().eval();
         Raster copyOfEdgesOfEdges = edgesOfEdges.eval();
         image.map(raster -> copyOfEdgesOfEdges.multiply(255))
-                .write(new File("output-4.png"));
+                .write(new File(directory, "output-4.png"));
 
         image.map(raster -> raster.multiply(edgesOfEdges).multiply(lightRaster).clamp(0, 255))
-                .write(new File("output-5.png"));
+                .write(new File(directory, "output-5.png"));
     }
 
     /*
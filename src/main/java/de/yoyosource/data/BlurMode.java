@@ -0,0 +1,8 @@
+package de.yoyosource.data;
+
+public enum BlurMode {
+    BOX,
+    GAUSSIAN,
+    FAST_GAUSSIAN,
+    APPROXIMATE
+}
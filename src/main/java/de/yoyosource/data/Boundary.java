@@ -0,0 +1,8 @@
+package de.yoyosource.data;
+
+public enum Boundary {
+    CLAMP,
+    REFLECT,
+    WRAP,
+    CONSTANT
+}
@@ -0,0 +1,5 @@
+package de.yoyosource.data;
+
+public interface ColorPredicate {
+    boolean test(double red, double green, double blue, double alpha);
+}
@@ -0,0 +1,19 @@
+package de.yoyosource.data;
+
+public enum ColorSpace {
+    LUMINANCE(1),
+    HSL(3),
+    HSV(3),
+    YCBCR(3),
+    LAB(3);
+
+    private final int planes;
+
+    ColorSpace(int planes) {
+        this.planes = planes;
+    }
+
+    public int planes() {
+        return planes;
+    }
+}
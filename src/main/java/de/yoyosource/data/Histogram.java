@@ -0,0 +1,156 @@
+package de.yoyosource.data;
+
+import de.yoyosource.data.impl.Kernel;
+import de.yoyosource.data.impl.Parallel;
+
+import java.util.function.DoubleUnaryOperator;
+
+public final class Histogram {
+
+    public static final int BINS = 4096;
+
+    private final double min;
+    private final double max;
+    private final long[] counts;
+    private final long[] cumulative;
+
+    public Histogram(double min, double max, long[] counts) {
+        if (!(min <= max)) throw new IllegalArgumentException("min " + min + " is greater than max " + max);
+        if (counts.length == 0) throw new IllegalArgumentException("histogram needs at least one bin");
+        this.min = min;
+        this.max = max;
+        this.counts = counts;
+        this.cumulative = new long[counts.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            cumulative[i + 1] = cumulative[i] + counts[i];
+        }
+    }
+
+    public static Histogram of(RasterSource raster, double min, double max) {
+        return of(raster, min, max, BINS);
+    }
+
+    public static Histogram of(RasterSource raster, double min, double max, int bins) {
+        int length = raster.width() * raster.height();
+        int blocks = (length + Kernel.BLOCK_SIZE - 1) / Kernel.BLOCK_SIZE;
+        int chunks = Math.max(1, Math.min(blocks, Parallel.parallelism() * 4));
+        long[][] partial = new long[chunks][];
+        double scale = max > min ? bins / (max - min) : 0;
+        Parallel.forEach(chunks, (long) blocks / chunks * Kernel.BLOCK_SIZE, (from, to) -> {
+            double[] values = new double[Kernel.BLOCK_SIZE];
+            for (int chunk = from; chunk < to; chunk++) {
+                long[] counts = new long[bins];
+                for (int block = (int) ((long) blocks * chunk / chunks), end = (int) ((long) blocks * (chunk + 1) / chunks); block < end; block++) {
+                    int index = block * Kernel.BLOCK_SIZE;
+                    int count = Math.min(Kernel.BLOCK_SIZE, length - index);
+                    raster.get(index, values, 0, count);
+                    for (int i = 0; i < count; i++) {
+                        counts[bin(values[i], min, scale, bins)]++;
+                    }
+                }
+                partial[chunk] = counts;
+            }
+        });
+        long[] counts = partial[0];
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            for (int bin = 0; bin < bins; bin++) {
+                counts[bin] += partial[chunk][bin];
+            }
+        }
+        return new Histogram(min, max, counts);
+    }
+
+    private static int bin(double value, double min, double scale, int bins) {
+        int bin = (int) ((value - min) * scale);
+        return bin < 0 ? 0 : Math.min(bin, bins - 1);
+    }
+
+    public Histogram merge(Histogram other) {
+        if (min != other.min || max != other.max || counts.length != other.counts.length) {
+            throw new IllegalArgumentException("Cannot merge histograms with different ranges or bins");
+        }
+        long[] counts = this.counts.clone();
+        for (int bin = 0; bin < counts.length; bin++) {
+            counts[bin] += other.counts[bin];
+        }
+        return new Histogram(min, max, counts);
+    }
+
+    public Histogram affine(double scale, DoubleUnaryOperator operator) {
+        double min = operator.applyAsDouble(this.min);
+        double max = operator.applyAsDouble(this.max);
+        if (scale >= 0) return new Histogram(min, max, counts);
+        long[] counts = new long[this.counts.length];
+        for (int bin = 0; bin < counts.length; bin++) {
+            counts[bin] = this.counts[counts.length - 1 - bin];
+        }
+        return new Histogram(max, min, counts);
+    }
+
+    public double percentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 1)) {
+            throw new IllegalArgumentException("percentile " + percentile + " outside of 0..1");
+        }
+        long count = count();
+        if (count == 0) return Double.NaN;
+        double rank = percentile * count;
+        int low = 0;
+        int high = counts.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle + 1] < rank) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        while (counts[low] == 0 && low < counts.length - 1) low++;
+        double fraction = Math.min(1, Math.max(0, (rank - cumulative[low]) / counts[low]));
+        return Math.min(max, lower(low) + fraction * width());
+    }
+
+    public double cdf(double value) {
+        long count = count();
+        if (count == 0) return Double.NaN;
+        if (value < min) return 0;
+        if (value >= max) return 1;
+        double width = width();
+        if (width == 0) return 1;
+        double position = (value - min) / width;
+        int bin = Math.min((int) position, counts.length - 1);
+        return (cumulative[bin] + counts[bin] * Math.min(1, position - bin)) / count;
+    }
+
+    public long count() {
+        return cumulative[counts.length];
+    }
+
+    public long count(int bin) {
+        return counts[bin];
+    }
+
+    public int bins() {
+        return counts.length;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    public double lower(int bin) {
+        return min + bin * width();
+    }
+
+    private double width() {
+        return (max - min) / counts.length;
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{count=" + count() + ", min=" + min + ", max=" + max + ", bins=" + counts.length + "}";
+    }
+}
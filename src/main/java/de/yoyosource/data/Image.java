@@ -7,7 +7,15 @@ import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 
 public interface Image {
+    int width();
+    int height();
+    Raster red();
+    Raster green();
+    Raster blue();
+    Raster alpha();
+
     void write(File file);
+    Image eval();
 
     default Image map(UnaryOperator<Raster> operator) {
         return mapRed(operator).mapGreen(operator).mapBlue(operator);
@@ -19,6 +27,11 @@ public interface Image {
     Image mapGreen(UnaryOperator<Raster> operator);
     Image mapBlue(UnaryOperator<Raster> operator);
     Image mapAlpha(UnaryOperator<Raster> operator);
-    Image filter(Predicate<Color> filter);
+    default Image filter(Predicate<Color> filter) {
+        return filter((red, green, blue, alpha) -> filter.test(new Color(red, green, blue, alpha)));
+    }
+    Image filter(ColorPredicate filter);
+    Mask mask();
     Raster lightness();
+    Raster[] planes(ColorSpace... spaces);
 }
@@ -0,0 +1,219 @@
+package de.yoyosource.data;
+
+import de.yoyosource.data.impl.Kernel;
+import de.yoyosource.data.impl.OperandCache;
+import de.yoyosource.data.impl.Parallel;
+import de.yoyosource.data.impl.Profiler;
+import de.yoyosource.data.impl.RegionSource;
+
+import java.util.function.DoublePredicate;
+
+public final class Mask implements RasterSource {
+
+    private final int width;
+    private final int height;
+    private final long[] words;
+    private volatile int count = -1;
+    private volatile int[] ranks;
+
+    private Mask(int width, int height, long[] words) {
+        this.width = width;
+        this.height = height;
+        this.words = words;
+    }
+
+    public Mask(int width, int height) {
+        this(width, height, new long[(width * height + 63) >>> 6]);
+    }
+
+    public static Mask of(Image image, ColorPredicate predicate) {
+        Raster red = image.red();
+        Raster green = image.green();
+        Raster blue = image.blue();
+        Raster alpha = image.alpha();
+        Mask mask = new Mask(image.width(), image.height());
+        int length = image.width() * image.height();
+        long[] words = mask.words;
+        Profiler.run("filter", length, () -> Parallel.forEach(words.length, 64, (from, to) -> OperandCache.interleaved(() -> {
+            double[] r = new double[Kernel.BLOCK_SIZE];
+            double[] g = new double[Kernel.BLOCK_SIZE];
+            double[] b = new double[Kernel.BLOCK_SIZE];
+            double[] a = new double[Kernel.BLOCK_SIZE];
+            for (int start = from << 6, end = Math.min(length, to << 6); start < end; start += Kernel.BLOCK_SIZE) {
+                int count = Math.min(Kernel.BLOCK_SIZE, end - start);
+                red.get(start, r, 0, count);
+                green.get(start, g, 0, count);
+                blue.get(start, b, 0, count);
+                alpha.get(start, a, 0, count);
+                for (int i = 0; i < count; i++) {
+                    if (predicate.test(r[i], g[i], b[i], a[i])) words[(start + i) >>> 6] |= 1L << (start + i);
+                }
+            }
+        })));
+        return mask;
+    }
+
+    public static Mask region(int width, int height, int x, int y, int regionWidth, int regionHeight) {
+        Mask mask = new Mask(width, height);
+        int[] region = RegionSource.clip(mask, x, y, regionWidth, regionHeight);
+        for (int row = region[1]; row < region[1] + region[3]; row++) {
+            for (int index = row * width + region[0], end = index + region[2]; index < end; index++) {
+                mask.words[index >>> 6] |= 1L << index;
+            }
+        }
+        return mask;
+    }
+
+    public static Mask of(RasterSource raster, DoublePredicate predicate) {
+        Mask mask = new Mask(raster.width(), raster.height());
+        int length = raster.width() * raster.height();
+        long[] words = mask.words;
+        Profiler.run("filter", length, () -> Parallel.forEach(words.length, 64, (from, to) -> {
+            double[] values = new double[Kernel.BLOCK_SIZE];
+            for (int start = from << 6, end = Math.min(length, to << 6); start < end; start += Kernel.BLOCK_SIZE) {
+                int count = Math.min(Kernel.BLOCK_SIZE, end - start);
+                raster.get(start, values, 0, count);
+                for (int i = 0; i < count; i++) {
+                    if (predicate.test(values[i])) words[(start + i) >>> 6] |= 1L << (start + i);
+                }
+            }
+        }));
+        return mask;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public double get(int index) {
+        return contains(index) ? 1 : 0;
+    }
+
+    public boolean contains(int index) {
+        return (words[index >>> 6] & 1L << index) != 0;
+    }
+
+    public boolean contains(int x, int y) {
+        return contains(y * width + x);
+    }
+
+    public int nextSetBit(int index) {
+        return nextSetBit(index, width * height);
+    }
+
+    public int nextSetBit(int index, int limit) {
+        limit = Math.min(limit, width * height);
+        if (index >= limit) return limit;
+        int word = index >>> 6;
+        int last = (limit - 1) >>> 6;
+        long bits = words[word] & -1L << index;
+        while (bits == 0) {
+            if (++word > last) return limit;
+            bits = words[word];
+        }
+        return Math.min(limit, (word << 6) + Long.numberOfTrailingZeros(bits));
+    }
+
+    public int nextClearBit(int index) {
+        return nextClearBit(index, width * height);
+    }
+
+    public int nextClearBit(int index, int limit) {
+        limit = Math.min(limit, width * height);
+        if (index >= limit) return limit;
+        int word = index >>> 6;
+        int last = (limit - 1) >>> 6;
+        long bits = ~words[word] & -1L << index;
+        while (bits == 0) {
+            if (++word > last) return limit;
+            bits = ~words[word];
+        }
+        return Math.min(limit, (word << 6) + Long.numberOfTrailingZeros(bits));
+    }
+
+    public int runs(int from, int to) {
+        int runs = 0;
+        for (int word = from >>> 6; from < to && word <= (to - 1) >>> 6; word++) {
+            long bits = words[word];
+            long starts = bits & ~(bits << 1 | (word == 0 ? 0 : words[word - 1] >>> 63));
+            if (word == from >>> 6) starts &= -1L << from;
+            if (word == (to - 1) >>> 6 && (to & 63) != 0) starts &= -1L >>> 64 - (to & 63);
+            runs += Long.bitCount(starts);
+        }
+        return runs;
+    }
+
+    public int count() {
+        int count = this.count;
+        if (count < 0) {
+            count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            this.count = count;
+        }
+        return count;
+    }
+
+    public int rank(int index) {
+        int[] ranks = this.ranks;
+        if (ranks == null) {
+            ranks = new int[words.length + 1];
+            for (int i = 0; i < words.length; i++) {
+                ranks[i + 1] = ranks[i] + Long.bitCount(words[i]);
+            }
+            this.ranks = ranks;
+        }
+        int word = index >>> 6;
+        return ranks[word] + ((index & 63) == 0 ? 0 : Long.bitCount(words[word] & -1L >>> 64 - (index & 63)));
+    }
+
+    public boolean isEmpty() {
+        return count() == 0;
+    }
+
+    public boolean isFull() {
+        return count() == width * height;
+    }
+
+    public Mask and(Mask other) {
+        check(other);
+        long[] words = new long[this.words.length];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = this.words[i] & other.words[i];
+        }
+        return new Mask(width, height, words);
+    }
+
+    public Mask or(Mask other) {
+        check(other);
+        long[] words = new long[this.words.length];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = this.words[i] | other.words[i];
+        }
+        return new Mask(width, height, words);
+    }
+
+    public Mask not() {
+        long[] words = new long[this.words.length];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = ~this.words[i];
+        }
+        int tail = width * height & 63;
+        if (tail != 0) words[words.length - 1] &= (1L << tail) - 1;
+        return new Mask(width, height, words);
+    }
+
+    private void check(Mask other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Cannot combine a " + width + "x" + height + " mask with a " + other.width + "x" + other.height + " mask");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package de.yoyosource.data;
+
+public enum PngFilter {
+    NONE,
+    SUB,
+    UP,
+    AVERAGE,
+    PAETH,
+    ADAPTIVE
+}
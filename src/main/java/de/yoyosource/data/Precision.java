@@ -0,0 +1,18 @@
+package de.yoyosource.data;
+
+public enum Precision {
+    BYTE(1),
+    SHORT(2),
+    FLOAT(4),
+    DOUBLE(8);
+
+    private final int bytes;
+
+    Precision(int bytes) {
+        this.bytes = bytes;
+    }
+
+    public int bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,81 @@
+package de.yoyosource.data;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+public final class ProfileEntry {
+
+    private final String name;
+    private final long calls;
+    private final long nanos;
+    private final long pixels;
+    private final long allocatedBytes;
+    private final List<ProfileEntry> children;
+
+    public ProfileEntry(String name, long calls, long nanos, long pixels, long allocatedBytes, List<ProfileEntry> children) {
+        this.name = name;
+        this.calls = calls;
+        this.nanos = nanos;
+        this.pixels = pixels;
+        this.allocatedBytes = allocatedBytes;
+        this.children = Collections.unmodifiableList(children);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long calls() {
+        return calls;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+
+    public long pixels() {
+        return pixels;
+    }
+
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public List<ProfileEntry> children() {
+        return children;
+    }
+
+    public String folded() {
+        StringBuilder builder = new StringBuilder();
+        folded(builder, name);
+        return builder.toString();
+    }
+
+    private void folded(StringBuilder builder, String path) {
+        long self = nanos;
+        for (ProfileEntry child : children) {
+            self -= child.nanos;
+            child.folded(builder, path + ";" + child.name);
+        }
+        if (self > 0) {
+            builder.append(path).append(' ').append(self).append('\n');
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        format(builder, "", "", Math.max(1, nanos));
+        return builder.toString();
+    }
+
+    private void format(StringBuilder builder, String prefix, String childPrefix, long total) {
+        builder.append(String.format(Locale.ROOT, "%-48s %6.1f%% %10.3f ms %8d calls %12d px %12d B%n",
+                prefix + name, 100.0 * nanos / total, nanos / 1e6, calls, pixels, allocatedBytes));
+        for (int i = 0; i < children.size(); i++) {
+            boolean last = i == children.size() - 1;
+            children.get(i).format(builder, childPrefix + (last ? "`-- " : "|-- "), childPrefix + (last ? "    " : "|   "), total);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package de.yoyosource.data;
+
+public interface Pyramid {
+    int levels();
+    Raster level(int level);
+    RasterStatistics statistics(int level);
+    int level(int radius, double tolerance);
+    Raster blur(int radius, double tolerance);
+}
@@ -1,11 +1,14 @@
 package de.yoyosource.data;
 
+import java.util.function.UnaryOperator;
+
 public interface Raster extends RasterSource {
     int width();
     int height();
     double get(int x, int y);
 
     Raster eval();
+    Raster eval(Precision precision);
 
     Raster add(double value);
     Raster subtract(double value);
@@ -28,10 +31,25 @@ public interface Raster extends RasterSource {
     Raster max(Raster raster);
 
     Raster normalize();
+    Raster normalize(double percentile);
+    Raster equalize();
     Raster gaussianBlur(int radius);
+    Raster gaussianBlur(int radius, BlurMode mode);
+    Pyramid pyramid();
     Raster edges(double thresholdSquared);
+    Raster stencil(Stencil stencil);
+    Raster stencil(Stencil stencil, Boundary boundary);
+    Raster stencil(Stencil stencil, Boundary boundary, double constant);
     Raster invert();
+    Raster select(Mask mask, Raster selected);
+
+    default Raster masked(Mask mask, UnaryOperator<Raster> operator) {
+        return select(mask, operator.apply(this));
+    }
 
+    RasterStatistics statistics();
+    Histogram histogram();
+    double percentile(double percentile);
     double average();
     double deviation();
     double min();
@@ -1,34 +1,20 @@
 package de.yoyosource.data;
 
 import de.yoyosource.data.impl.RasterImpl;
+import de.yoyosource.data.impl.RegionSource;
 
 public interface RasterSource {
     int width();
     int height();
     double get(int index);
 
-    default Raster subRaster(int x, int y, int width, int height) {
-        int x2 = Math.max(0, x);
-        int y2 = Math.max(0, y);
-        int width2 = Math.min(width(), x + width) - x;
-        int height2 = Math.min(height(), y + height) - y;
-        return new RasterImpl(new RasterSource() {
-            @Override
-            public int width() {
-                return width2;
-            }
-
-            @Override
-            public int height() {
-                return height2;
-            }
+    default void get(int index, double[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            values[offset + i] = get(index + i);
+        }
+    }
 
-            @Override
-            public double get(int index) {
-                int x = index % width;
-                int y = index / width;
-                return RasterSource.this.get(x + x2 + (y + y2) * RasterSource.this.width());
-            }
-        });
+    default Raster subRaster(int x, int y, int width, int height) {
+        return new RasterImpl(RegionSource.of(this, x, y, width, height));
     }
 }
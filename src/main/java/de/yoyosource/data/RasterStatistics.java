@@ -0,0 +1,126 @@
+package de.yoyosource.data;
+
+import de.yoyosource.data.impl.ArrayOps;
+import de.yoyosource.data.impl.Kernel;
+import de.yoyosource.data.impl.Parallel;
+
+import java.util.function.DoubleUnaryOperator;
+
+public final class RasterStatistics {
+
+    public static final RasterStatistics EMPTY = new RasterStatistics(0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0);
+
+    private final long count;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double m2;
+
+    public RasterStatistics(long count, double min, double max, double mean, double m2) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.m2 = m2;
+    }
+
+    public static RasterStatistics of(RasterSource raster) {
+        int length = raster.width() * raster.height();
+        int blocks = (length + Kernel.BLOCK_SIZE - 1) / Kernel.BLOCK_SIZE;
+        RasterStatistics[] partial = new RasterStatistics[blocks];
+        Parallel.forEach(blocks, Kernel.BLOCK_SIZE, (from, to) -> {
+            double[] values = new double[Kernel.BLOCK_SIZE];
+            for (int block = from; block < to; block++) {
+                int index = block * Kernel.BLOCK_SIZE;
+                int count = Math.min(Kernel.BLOCK_SIZE, length - index);
+                raster.get(index, values, 0, count);
+                partial[block] = of(values, 0, count);
+            }
+        });
+        return merge(partial, 0, blocks);
+    }
+
+    private static RasterStatistics merge(RasterStatistics[] partial, int from, int to) {
+        if (to - from == 0) return EMPTY;
+        if (to - from == 1) return partial[from];
+        int middle = (from + to) >>> 1;
+        return merge(partial, from, middle).merge(merge(partial, middle, to));
+    }
+
+    public static RasterStatistics of(double[] values, int offset, int length) {
+        if (length == 0) return EMPTY;
+        double sum = 0;
+        for (int i = offset; i < offset + length; i++) {
+            sum += values[i];
+        }
+        double mean = sum / length;
+        double m2 = 0;
+        double compensation = 0;
+        for (int i = offset; i < offset + length; i++) {
+            double delta = values[i] - mean;
+            m2 += delta * delta;
+            compensation += delta;
+        }
+        mean += compensation / length;
+        m2 -= compensation * compensation / length;
+        ArrayOps ops = ArrayOps.get();
+        return new RasterStatistics(length,
+                ops.reduceMin(values, offset, length, Double.POSITIVE_INFINITY),
+                ops.reduceMax(values, offset, length, Double.NEGATIVE_INFINITY),
+                mean, m2);
+    }
+
+    public RasterStatistics merge(RasterStatistics other) {
+        if (other.count == 0) return this;
+        if (count == 0) return other;
+        long count = this.count + other.count;
+        double delta = other.mean - mean;
+        double mean = this.mean + delta * other.count / count;
+        double m2 = this.m2 + other.m2 + delta * delta * ((double) this.count * other.count / count);
+        return new RasterStatistics(count, Math.min(min, other.min), Math.max(max, other.max), mean, m2);
+    }
+
+    public RasterStatistics affine(double scale, DoubleUnaryOperator operator) {
+        if (count == 0) return this;
+        double min = operator.applyAsDouble(this.min);
+        double max = operator.applyAsDouble(this.max);
+        return new RasterStatistics(count, scale < 0 ? max : min, scale < 0 ? min : max, operator.applyAsDouble(mean), m2 * scale * scale);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    public double sum() {
+        return mean * count;
+    }
+
+    public double average() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    public double variance() {
+        return count == 0 ? Double.NaN : Math.max(0, m2) / count;
+    }
+
+    public double sampleVariance() {
+        return count < 2 ? Double.NaN : Math.max(0, m2) / (count - 1);
+    }
+
+    public double deviation() {
+        return Math.sqrt(variance());
+    }
+
+    @Override
+    public String toString() {
+        return "RasterStatistics{count=" + count + ", min=" + min + ", max=" + max + ", mean=" + average() + ", deviation=" + deviation() + "}";
+    }
+}
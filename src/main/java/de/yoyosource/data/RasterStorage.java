@@ -0,0 +1,56 @@
+package de.yoyosource.data;
+
+import de.yoyosource.data.impl.BufferArena;
+import de.yoyosource.data.impl.ByteStorage;
+import de.yoyosource.data.impl.DoubleStorage;
+import de.yoyosource.data.impl.FloatStorage;
+import de.yoyosource.data.impl.ShortStorage;
+
+public interface RasterStorage extends RasterSource {
+    Precision precision();
+    void set(int index, double value);
+
+    default void set(int index, double[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            set(index + i, values[offset + i]);
+        }
+    }
+
+    default long bytes() {
+        return (long) width() * height() * precision().bytes();
+    }
+
+    static RasterStorage borrow(Precision precision, int width, int height) {
+        switch (precision) {
+            case BYTE: {
+                byte[] data = BufferArena.bytes(width * height);
+                return BufferArena.adopt(new ByteStorage(width, height, data), data);
+            }
+            case SHORT: {
+                short[] data = BufferArena.shorts(width * height);
+                return BufferArena.adopt(new ShortStorage(width, height, data), data);
+            }
+            case FLOAT: {
+                float[] data = BufferArena.floats(width * height);
+                return BufferArena.adopt(new FloatStorage(width, height, data), data);
+            }
+            default: {
+                double[] data = BufferArena.doubles(width * height);
+                return BufferArena.adopt(new DoubleStorage(width, height, data), data);
+            }
+        }
+    }
+
+    static RasterStorage allocate(Precision precision, int width, int height) {
+        switch (precision) {
+            case BYTE:
+                return new ByteStorage(width, height);
+            case SHORT:
+                return new ShortStorage(width, height);
+            case FLOAT:
+                return new FloatStorage(width, height);
+            default:
+                return new DoubleStorage(width, height);
+        }
+    }
+}
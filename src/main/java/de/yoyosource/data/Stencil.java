@@ -0,0 +1,7 @@
+package de.yoyosource.data;
+
+public interface Stencil {
+    int radius();
+
+    void apply(double[] source, int stride, int index, double[] target, int offset, int length);
+}
@@ -0,0 +1,9 @@
+package de.yoyosource.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface TileSink extends Closeable {
+    void begin(int width, int height) throws IOException;
+    void write(int x, int y, int width, int height, int[] argb) throws IOException;
+}
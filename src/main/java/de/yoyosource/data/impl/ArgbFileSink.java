@@ -0,0 +1,47 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.TileSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class ArgbFileSink implements TileSink {
+
+    public static final int HEADER_SIZE = 8;
+
+    private final FileChannel channel;
+    private int width;
+
+    public ArgbFileSink(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void begin(int width, int height) throws IOException {
+        this.width = width;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(width).putInt(height).flip();
+        channel.write(header, 0);
+    }
+
+    @Override
+    public void write(int x, int y, int width, int height, int[] argb) throws IOException {
+        ByteBuffer row = ByteBuffer.allocate(width * 4);
+        for (int line = 0; line < height; line++) {
+            row.clear();
+            row.asIntBuffer().put(argb, line * width, width);
+            long position = HEADER_SIZE + ((long) (y + line) * this.width + x) * 4;
+            while (row.hasRemaining()) {
+                position += channel.write(row, position);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,56 @@
+package de.yoyosource.data.impl;
+
+public interface ArrayOps {
+
+    ArrayOps INSTANCE = Loader.load();
+
+    static ArrayOps get() {
+        return INSTANCE;
+    }
+
+    static ArrayOps scalar() {
+        return ScalarArrayOps.INSTANCE;
+    }
+
+    boolean vectorized();
+
+    void add(double[] values, int offset, int length, double value);
+    void subtract(double[] values, int offset, int length, double value);
+    void multiply(double[] values, int offset, int length, double value);
+    void divide(double[] values, int offset, int length, double value);
+    void clamp(double[] values, int offset, int length, double min, double max);
+    void min(double[] values, int offset, int length, double value);
+    void minCutOff(double[] values, int offset, int length, double value, double cutOffValue);
+    void max(double[] values, int offset, int length, double value);
+    void maxCutOff(double[] values, int offset, int length, double value, double cutOffValue);
+    void invert(double[] values, int offset, int length, double max);
+
+    void add(double[] values, int offset, double[] operand, int length);
+    void subtract(double[] values, int offset, double[] operand, int length);
+    void multiply(double[] values, int offset, double[] operand, int length);
+    void divide(double[] values, int offset, double[] operand, int length);
+    void min(double[] values, int offset, double[] operand, int length);
+    void max(double[] values, int offset, double[] operand, int length);
+
+    double reduceMin(double[] values, int offset, int length, double identity);
+    double reduceMax(double[] values, int offset, int length, double identity);
+
+    final class Loader {
+        private Loader() {
+        }
+
+        private static ArrayOps load() {
+            if (!Boolean.parseBoolean(System.getProperty("imageprocessor.vector", "true"))) {
+                return ScalarArrayOps.INSTANCE;
+            }
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return ScalarArrayOps.INSTANCE;
+            }
+            try {
+                return (ArrayOps) Class.forName("de.yoyosource.data.impl.VectorArrayOps").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return ScalarArrayOps.INSTANCE;
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Image;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class BatchProcessor {
+
+    private final File input;
+    private final File output;
+    private final Function<Image, List<Image>> pipeline;
+    private final int inFlight;
+    private final int cpuThreads;
+
+    public BatchProcessor(File input, File output, Function<Image, List<Image>> pipeline) {
+        this(input, output, pipeline, 2 * Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchProcessor(File input, File output, Function<Image, List<Image>> pipeline, int inFlight, int cpuThreads) {
+        if (!input.isDirectory()) throw new IllegalArgumentException(input + " is not a directory");
+        if (inFlight <= 0) throw new IllegalArgumentException("inFlight must be positive");
+        if (cpuThreads <= 0) throw new IllegalArgumentException("cpuThreads must be positive");
+        this.input = input;
+        this.output = output;
+        this.pipeline = pipeline;
+        this.inFlight = inFlight;
+        this.cpuThreads = cpuThreads;
+    }
+
+    public Result run() throws IOException {
+        return run(progress -> {
+        });
+    }
+
+    public Result run(Consumer<Progress> listener) throws IOException {
+        List<Path> files = files();
+        Map<File, Throwable> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+        AtomicInteger completed = new AtomicInteger();
+        AtomicLong pixels = new AtomicLong();
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(inFlight);
+
+        ExecutorService io = ioExecutor();
+        ExecutorService cpu = Executors.newFixedThreadPool(cpuThreads, daemon("batch-cpu-"));
+        List<CompletableFuture<Void>> futures = new ArrayList<>(files.size());
+        try {
+            for (Path path : files) {
+                permits.acquireUninterruptibly();
+                File file = path.toFile();
+                BufferArena.Scope buffers = BufferArena.scope();
+                CompletableFuture<Void> future = CompletableFuture.supplyAsync(() -> buffers.call(() -> decode(file)), io)
+                        .thenApplyAsync(image -> buffers.call(() -> {
+                            pixels.addAndGet((long) image.getWidth() * image.getHeight());
+                            return Parallel.call(cpu, cpuThreads, () -> process(image));
+                        }), cpu)
+                        .thenAcceptAsync(images -> buffers.run(() -> encode(path, images)), io)
+                        .handle((ignored, t) -> {
+                            buffers.close();
+                            permits.release();
+                            if (t != null) failures.put(file, t.getCause() != null ? t.getCause() : t);
+                            int done = completed.incrementAndGet();
+                            Progress progress = new Progress(files.size(), done, failures.size(), pixels.get(), System.nanoTime() - start);
+                            synchronized (listener) {
+                                listener.accept(progress);
+                            }
+                            return null;
+                        });
+                futures.add(future);
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            io.shutdown();
+            cpu.shutdown();
+        }
+
+        Progress progress = new Progress(files.size(), completed.get(), failures.size(), pixels.get(), System.nanoTime() - start);
+        return new Result(progress, new LinkedHashMap<>(failures));
+    }
+
+    private List<Path> files() throws IOException {
+        Set<String> suffixes = Arrays.stream(ImageIO.getReaderFileSuffixes())
+                .map(suffix -> suffix.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toCollection(HashSet::new));
+        try (Stream<Path> paths = Files.walk(input.toPath())) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> suffixes.contains(suffix(path)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static BufferedImage decode(File file) {
+        try {
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) throw new IOException("No image reader for " + file);
+            return image;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private List<Image> process(BufferedImage image) {
+        List<Image> images = pipeline.apply(new ImageImpl(image));
+        List<Image> evaluated = new ArrayList<>(images.size());
+        for (Image result : images) {
+            evaluated.add(result.eval());
+        }
+        return evaluated;
+    }
+
+    private void encode(Path path, List<Image> images) {
+        Path relative = input.toPath().relativize(path);
+        String name = relative.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        File directory = relative.getParent() == null ? output : new File(output, relative.getParent().toString());
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new RuntimeException("Cannot create " + directory);
+        }
+        for (int i = 0; i < images.size(); i++) {
+            images.get(i).write(new File(directory, i == 0 ? base + ".png" : base + "-" + i + ".png"));
+        }
+    }
+
+    private static String suffix(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static ExecutorService ioExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(daemon("batch-io-"));
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static final class Progress {
+        private final int total;
+        private final int completed;
+        private final int failed;
+        private final long pixels;
+        private final long nanos;
+
+        private Progress(int total, int completed, int failed, long pixels, long nanos) {
+            this.total = total;
+            this.completed = completed;
+            this.failed = failed;
+            this.pixels = pixels;
+            this.nanos = nanos;
+        }
+
+        public int total() {
+            return total;
+        }
+
+        public int completed() {
+            return completed;
+        }
+
+        public int failed() {
+            return failed;
+        }
+
+        public long pixels() {
+            return pixels;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public double imagesPerSecond() {
+            return nanos == 0 ? 0 : completed * 1e9 / nanos;
+        }
+
+        public double megapixelsPerSecond() {
+            return nanos == 0 ? 0 : pixels * 1e3 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d/%d done, %d failed, %.1f images/s, %.1f MP/s",
+                    completed, total, failed, imagesPerSecond(), megapixelsPerSecond());
+        }
+    }
+
+    public static final class Result {
+        private final Progress progress;
+        private final Map<File, Throwable> failures;
+
+        private Result(Progress progress, Map<File, Throwable> failures) {
+            this.progress = progress;
+            this.failures = Collections.unmodifiableMap(failures);
+        }
+
+        public Progress progress() {
+            return progress;
+        }
+
+        public Map<File, Throwable> failures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return progress.toString();
+        }
+    }
+}
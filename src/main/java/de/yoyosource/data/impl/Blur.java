@@ -0,0 +1,287 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.RasterSource;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class Blur implements Operator, RasterMemory.Evictable {
+
+    private RasterSource raster;
+    private final int radius;
+    private final BlurMode mode;
+    private final int offset;
+    private final int stride;
+    private final int width;
+    private final boolean recomputable;
+    private volatile DoubleStorage data;
+    private volatile RasterMemory.Entry entry;
+
+    public Blur(RasterSource raster, int radius, BlurMode mode) {
+        this(raster, radius, mode, null, 0, raster.width(), raster.width());
+    }
+
+    private Blur(RasterSource raster, int radius, BlurMode mode, DoubleStorage data, int offset, int stride, int width) {
+        this.raster = raster;
+        this.radius = radius;
+        this.mode = mode;
+        this.data = data;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.recomputable = raster != null && RasterMemory.isBounded();
+    }
+
+    @Override
+    public double apply(int index, double value) {
+        DoubleStorage data = this.data;
+        if (data == null) {
+            data = data();
+        } else {
+            RasterMemory.Entry entry = this.entry;
+            if (entry != null) entry.touch(index, width);
+        }
+        if (width == stride) return data.get(offset + index);
+        int y = index / width;
+        return data.get(offset + y * stride + index - y * width);
+    }
+
+    @Override
+    public void apply(int index, double[] values, int offset, int length) {
+        DoubleStorage data = data();
+        if (width == stride) {
+            data.get(this.offset + index, values, offset, length);
+            return;
+        }
+        int y = index / width;
+        int x = index - y * width;
+        while (length > 0) {
+            int count = Math.min(length, width - x);
+            data.get(this.offset + y * stride + x, values, offset, count);
+            offset += count;
+            length -= count;
+            x = 0;
+            y++;
+        }
+    }
+
+    @Override
+    public synchronized Operator region(int x, int y, int width, int height) {
+        if (data != null) {
+            Blur view = new Blur(null, radius, mode, data, offset + y * stride + x, stride, width);
+            view.entry = entry;
+            return view;
+        }
+        x += offset % stride;
+        y += offset / stride;
+        int halo = halo(radius, mode);
+        int fromX = Math.max(0, x - halo);
+        int fromY = Math.max(0, y - halo);
+        int toX = Math.min(raster.width(), x + width + halo);
+        int toY = Math.min(raster.height(), y + height + halo);
+        return new Blur(raster.subRaster(fromX, fromY, toX - fromX, toY - fromY), radius, mode, null, (y - fromY) * (toX - fromX) + x - fromX, toX - fromX, width);
+    }
+
+    private DoubleStorage data() {
+        DoubleStorage data = this.data;
+        if (data != null) {
+            RasterMemory.Entry entry = this.entry;
+            if (entry != null) entry.touch();
+            return data;
+        }
+        boolean computed = false;
+        synchronized (this) {
+            data = this.data;
+            if (data == null) {
+                double[] blurred = blur(raster, radius, mode);
+                data = BufferArena.adopt(new DoubleStorage(raster.width(), raster.height(), blurred), blurred);
+                this.data = data;
+                if (!recomputable) this.raster = null;
+                computed = true;
+            }
+        }
+        if (computed) entry = RasterMemory.admit(this, entry, data.bytes());
+        return data;
+    }
+
+    @Override
+    public synchronized boolean evict(File spillDirectory) {
+        if (data == null || raster == null) return false;
+        data = null;
+        return true;
+    }
+
+    public static int halo(int radius, BlurMode mode) {
+        if (mode != BlurMode.FAST_GAUSSIAN || radius <= 0) return Math.max(0, radius);
+        int halo = 0;
+        for (int boxRadius : boxRadii(radius / 3.0, 3)) {
+            halo += boxRadius;
+        }
+        return halo;
+    }
+
+    public static double[] blur(RasterSource raster, int radius, BlurMode mode) {
+        return Profiler.time("gaussianBlur " + mode + " " + radius, (long) raster.width() * raster.height(), () -> compute(raster, radius, mode));
+    }
+
+    private static double[] compute(RasterSource raster, int radius, BlurMode mode) {
+        int width = raster.width();
+        int height = raster.height();
+        double[] data = BufferArena.doubles(width * height);
+        Parallel.forRows(width, height, (from, to) -> raster.get(from * width, data, from * width, (to - from) * width));
+        if (radius <= 0) return data;
+
+        double[] temp = BufferArena.doubles(data.length);
+        try {
+            blur(data, temp, width, height, radius, mode);
+        } finally {
+            BufferArena.release(temp);
+        }
+        return data;
+    }
+
+    private static void blur(double[] data, double[] temp, int width, int height, int radius, BlurMode mode) {
+        switch (mode) {
+            case BOX:
+            case APPROXIMATE:
+                box(data, temp, width, height, radius);
+                break;
+            case GAUSSIAN:
+                gaussian(data, temp, width, height, radius);
+                break;
+            case FAST_GAUSSIAN:
+                for (int boxRadius : boxRadii(radius / 3.0, 3)) {
+                    box(data, temp, width, height, boxRadius);
+                }
+                break;
+        }
+    }
+
+    private static void box(double[] data, double[] temp, int width, int height, int radius) {
+        Parallel.forRows(width, height, (from, to) -> boxRows(data, temp, width, from, to, radius));
+        Parallel.forEach(width, height, (from, to) -> boxColumns(temp, data, width, height, from, to, radius));
+    }
+
+    private static void boxRows(double[] source, double[] target, int width, int fromRow, int toRow, int radius) {
+        for (int y = fromRow; y < toRow; y++) {
+            int row = y * width;
+            double sum = 0;
+            int nonZero = 0;
+            for (int x = 0; x < Math.min(radius, width); x++) {
+                sum += source[row + x];
+                if (source[row + x] != 0) nonZero++;
+            }
+            for (int x = 0; x < width; x++) {
+                if (x + radius < width) {
+                    sum += source[row + x + radius];
+                    if (source[row + x + radius] != 0) nonZero++;
+                }
+                if (x - radius - 1 >= 0) {
+                    sum -= source[row + x - radius - 1];
+                    if (source[row + x - radius - 1] != 0) nonZero--;
+                }
+                if (nonZero == 0) sum = 0;
+                target[row + x] = sum / (Math.min(width - 1, x + radius) - Math.max(0, x - radius) + 1);
+            }
+        }
+    }
+
+    private static void boxColumns(double[] source, double[] target, int width, int height, int fromColumn, int toColumn, int radius) {
+        int columns = toColumn - fromColumn;
+        double[] sums = new double[columns];
+        int[] nonZeros = new int[columns];
+        for (int y = 0; y < Math.min(radius, height); y++) {
+            for (int x = 0; x < columns; x++) {
+                double value = source[y * width + fromColumn + x];
+                sums[x] += value;
+                if (value != 0) nonZeros[x]++;
+            }
+        }
+        for (int y = 0; y < height; y++) {
+            int added = y + radius;
+            int removed = y - radius - 1;
+            if (added < height) {
+                for (int x = 0; x < columns; x++) {
+                    double value = source[added * width + fromColumn + x];
+                    sums[x] += value;
+                    if (value != 0) nonZeros[x]++;
+                }
+            }
+            if (removed >= 0) {
+                for (int x = 0; x < columns; x++) {
+                    double value = source[removed * width + fromColumn + x];
+                    sums[x] -= value;
+                    if (value != 0) nonZeros[x]--;
+                }
+            }
+            double count = Math.min(height - 1, added) - Math.max(0, y - radius) + 1;
+            for (int x = 0; x < columns; x++) {
+                if (nonZeros[x] == 0) sums[x] = 0;
+                target[y * width + fromColumn + x] = sums[x] / count;
+            }
+        }
+    }
+
+    private static void gaussian(double[] data, double[] temp, int width, int height, int radius) {
+        double sigma = radius / 3.0;
+        double[] weights = new double[radius * 2 + 1];
+        for (int k = -radius; k <= radius; k++) {
+            weights[k + radius] = Math.exp(-(k * k) / (2 * sigma * sigma));
+        }
+        Parallel.forRows(width, height, (from, to) -> gaussianRows(data, temp, width, from, to, radius, weights));
+        Parallel.forEach(width, height, (from, to) -> gaussianColumns(temp, data, width, height, from, to, radius, weights));
+    }
+
+    private static void gaussianRows(double[] source, double[] target, int width, int fromRow, int toRow, int radius, double[] weights) {
+        for (int y = fromRow; y < toRow; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int from = Math.max(0, x - radius);
+                int to = Math.min(width - 1, x + radius);
+                double sum = 0;
+                double weight = 0;
+                for (int i = from; i <= to; i++) {
+                    double w = weights[i - x + radius];
+                    sum += source[row + i] * w;
+                    weight += w;
+                }
+                target[row + x] = sum / weight;
+            }
+        }
+    }
+
+    private static void gaussianColumns(double[] source, double[] target, int width, int height, int fromColumn, int toColumn, int radius, double[] weights) {
+        double[] sums = new double[toColumn - fromColumn];
+        for (int y = 0; y < height; y++) {
+            int from = Math.max(0, y - radius);
+            int to = Math.min(height - 1, y + radius);
+            Arrays.fill(sums, 0);
+            double weight = 0;
+            for (int i = from; i <= to; i++) {
+                double w = weights[i - y + radius];
+                int row = i * width + fromColumn;
+                for (int x = 0; x < sums.length; x++) {
+                    sums[x] += source[row + x] * w;
+                }
+                weight += w;
+            }
+            for (int x = 0; x < sums.length; x++) {
+                target[y * width + fromColumn + x] = sums[x] / weight;
+            }
+        }
+    }
+
+    private static int[] boxRadii(double sigma, int passes) {
+        double ideal = Math.sqrt(12 * sigma * sigma / passes + 1);
+        int lower = (int) Math.floor(ideal);
+        if (lower % 2 == 0) lower--;
+        int upper = lower + 2;
+        long lowerPasses = Math.round((12 * sigma * sigma - passes * lower * lower - 4.0 * passes * lower - 3.0 * passes) / (-4.0 * lower - 4));
+        int[] radii = new int[passes];
+        for (int i = 0; i < passes; i++) {
+            radii[i] = ((i < lowerPasses ? lower : upper) - 1) / 2;
+        }
+        return radii;
+    }
+}
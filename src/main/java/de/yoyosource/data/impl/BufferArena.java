@@ -0,0 +1,263 @@
+package de.yoyosource.data.impl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+public final class BufferArena {
+
+    private static final Pool<byte[]> BYTES = new Pool<>(Byte.BYTES, byte[]::new);
+    private static final Pool<short[]> SHORTS = new Pool<>(Short.BYTES, short[]::new);
+    private static final Pool<int[]> INTS = new Pool<>(Integer.BYTES, int[]::new);
+    private static final Pool<float[]> FLOATS = new Pool<>(Float.BYTES, float[]::new);
+    private static final Pool<double[]> DOUBLES = new Pool<>(Double.BYTES, double[]::new);
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final Map<Object, Lease> LEASES = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Object> RELEASED = new ReferenceQueue<>();
+    private static final AtomicLong POOLED = new AtomicLong();
+    private static final LongAdder ALLOCATIONS = new LongAdder();
+    private static final LongAdder REUSES = new LongAdder();
+
+    private static volatile long limit = Long.getLong("imageprocessor.arena.limit", 512L << 20);
+
+    private BufferArena() {
+    }
+
+    public static byte[] bytes(int length) {
+        return BYTES.borrow(length);
+    }
+
+    public static short[] shorts(int length) {
+        return SHORTS.borrow(length);
+    }
+
+    public static int[] ints(int length) {
+        return INTS.borrow(length);
+    }
+
+    public static float[] floats(int length) {
+        return FLOATS.borrow(length);
+    }
+
+    public static double[] doubles(int length) {
+        return DOUBLES.borrow(length);
+    }
+
+    public static <T> T adopt(T owner, Object array) {
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.untrack(array);
+        LEASES.put(array, new Lease(owner, array));
+        return owner;
+    }
+
+    public static void release(Object array) {
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.untrack(array);
+        Lease lease = LEASES.remove(array);
+        if (lease != null) lease.clear();
+        recycle(array);
+    }
+
+    public static void reclaim() {
+        Object reference;
+        while ((reference = RELEASED.poll()) != null) {
+            Lease lease = (Lease) reference;
+            if (LEASES.remove(lease.array, lease)) recycle(lease.array);
+        }
+    }
+
+    public static int leased() {
+        return LEASES.size();
+    }
+
+    private static void recycle(Object array) {
+        if (array instanceof byte[]) {
+            BYTES.release((byte[]) array, ((byte[]) array).length);
+        } else if (array instanceof short[]) {
+            SHORTS.release((short[]) array, ((short[]) array).length);
+        } else if (array instanceof int[]) {
+            INTS.release((int[]) array, ((int[]) array).length);
+        } else if (array instanceof float[]) {
+            FLOATS.release((float[]) array, ((float[]) array).length);
+        } else if (array instanceof double[]) {
+            DOUBLES.release((double[]) array, ((double[]) array).length);
+        } else if (array != null) {
+            throw new IllegalArgumentException("Cannot pool " + array.getClass().getSimpleName());
+        }
+    }
+
+    public static Scope open() {
+        Scope scope = new Scope();
+        scope.previous = CURRENT.get();
+        scope.owner = Thread.currentThread();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Scope scope() {
+        return new Scope();
+    }
+
+    public static long limit() {
+        return limit;
+    }
+
+    public static void setLimit(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("limit must not be negative");
+        limit = bytes;
+        if (POOLED.get() > bytes) clear();
+    }
+
+    public static void clear() {
+        BYTES.clear();
+        SHORTS.clear();
+        INTS.clear();
+        FLOATS.clear();
+        DOUBLES.clear();
+    }
+
+    public static long allocations() {
+        return ALLOCATIONS.sum();
+    }
+
+    public static long reuses() {
+        return REUSES.sum();
+    }
+
+    public static long pooledBytes() {
+        return POOLED.get();
+    }
+
+    static Parallel.RangeConsumer attach(Parallel.RangeConsumer range) {
+        Scope scope = CURRENT.get();
+        if (scope == null) return range;
+        return (from, to) -> scope.run(() -> range.accept(from, to));
+    }
+
+    private static final class Pool<T> {
+        private final int elementBytes;
+        private final IntFunction<T> allocator;
+        private final Map<Integer, ConcurrentLinkedDeque<T>> free = new ConcurrentHashMap<>();
+
+        private Pool(int elementBytes, IntFunction<T> allocator) {
+            this.elementBytes = elementBytes;
+            this.allocator = allocator;
+        }
+
+        private T borrow(int length) {
+            reclaim();
+            ConcurrentLinkedDeque<T> arrays = free.get(length);
+            T array = arrays == null ? null : arrays.pollFirst();
+            if (array == null) {
+                array = allocator.apply(length);
+                ALLOCATIONS.increment();
+            } else {
+                POOLED.addAndGet(-(long) length * elementBytes);
+                REUSES.increment();
+            }
+            Scope scope = CURRENT.get();
+            if (scope != null) scope.track(array);
+            return array;
+        }
+
+        private void release(T array, int length) {
+            long bytes = (long) length * elementBytes;
+            if (POOLED.addAndGet(bytes) > limit) {
+                POOLED.addAndGet(-bytes);
+                return;
+            }
+            free.computeIfAbsent(length, ignored -> new ConcurrentLinkedDeque<>()).offerFirst(array);
+        }
+
+        private void clear() {
+            for (ConcurrentLinkedDeque<T> arrays : free.values()) {
+                T array;
+                while ((array = arrays.pollFirst()) != null) {
+                    POOLED.addAndGet(-(long) Array.getLength(array) * elementBytes);
+                }
+            }
+        }
+    }
+
+    private static final class Lease extends WeakReference<Object> {
+        private final Object array;
+
+        private Lease(Object owner, Object array) {
+            super(owner, RELEASED);
+            this.array = array;
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Set<Object> arrays = Collections.newSetFromMap(new IdentityHashMap<>());
+        private Scope previous;
+        private Thread owner;
+        private boolean closed;
+
+        private Scope() {
+        }
+
+        public void run(Runnable runnable) {
+            call(() -> {
+                runnable.run();
+                return null;
+            });
+        }
+
+        public <T> T call(Supplier<T> supplier) {
+            Scope previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                return supplier.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        }
+
+        private synchronized void track(Object array) {
+            if (!closed) arrays.add(array);
+        }
+
+        private synchronized void untrack(Object array) {
+            arrays.remove(array);
+        }
+
+        @Override
+        public void close() {
+            List<Object> released;
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                released = new ArrayList<>(arrays);
+                arrays.clear();
+            }
+            if (owner == Thread.currentThread() && CURRENT.get() == this) {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+            for (Object array : released) {
+                recycle(array);
+            }
+            reclaim();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.TileSink;
+
+import java.awt.image.BufferedImage;
+
+public class BufferedImageSink implements TileSink {
+
+    private BufferedImage image;
+
+    @Override
+    public void begin(int width, int height) {
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @Override
+    public void write(int x, int y, int width, int height, int[] argb) {
+        image.setRGB(x, y, width, height, argb, 0, width);
+    }
+
+    public BufferedImage image() {
+        return image;
+    }
+
+    @Override
+    public void close() {
+    }
+}
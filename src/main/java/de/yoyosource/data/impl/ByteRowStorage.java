@@ -0,0 +1,86 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.RasterStorage;
+
+import java.awt.Rectangle;
+
+public class ByteRowStorage implements RasterStorage {
+
+    private final int width;
+    private final int height;
+    private final byte[][] rows;
+
+    private ByteRowStorage(int width, int height, byte[][] rows) {
+        this.width = width;
+        this.height = height;
+        this.rows = rows;
+    }
+
+    public static ByteRowStorage of(int width, int height, byte[] data) {
+        byte[][] rows = new byte[height][];
+        for (int y = 0; y < height; y++) {
+            rows[y] = new byte[width];
+            System.arraycopy(data, y * width, rows[y], 0, width);
+        }
+        return new ByteRowStorage(width, height, rows);
+    }
+
+    public ByteRowStorage patch(Rectangle region, byte[] patch, int offset, int stride) {
+        if (region.isEmpty()) return this;
+        byte[][] rows = this.rows.clone();
+        for (int y = region.y; y < region.y + region.height; y++) {
+            byte[] row = rows[y].clone();
+            System.arraycopy(patch, offset + (y - region.y) * stride, row, region.x, region.width);
+            rows[y] = row;
+        }
+        return new ByteRowStorage(width, height, rows);
+    }
+
+    byte[] row(int y) {
+        return rows[y];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public Precision precision() {
+        return Precision.BYTE;
+    }
+
+    @Override
+    public double get(int index) {
+        int y = index / width;
+        return rows[y][index - y * width] & 0xFF;
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        int y = index / width;
+        int x = index - y * width;
+        while (length > 0) {
+            int count = Math.min(length, width - x);
+            byte[] row = rows[y];
+            for (int i = 0; i < count; i++) {
+                values[offset + i] = row[x + i] & 0xFF;
+            }
+            offset += count;
+            length -= count;
+            x = 0;
+            y++;
+        }
+    }
+
+    @Override
+    public void set(int index, double value) {
+        throw new UnsupportedOperationException("Rows are shared between frames and cannot be written");
+    }
+}
@@ -0,0 +1,70 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.RasterStorage;
+
+public class ByteStorage implements RasterStorage {
+
+    private final int width;
+    private final int height;
+    private final byte[] data;
+
+    public ByteStorage(int width, int height) {
+        this(width, height, new byte[width * height]);
+    }
+
+    public ByteStorage(int width, int height, byte[] data) {
+        this.width = width;
+        this.height = height;
+        this.data = data;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public Precision precision() {
+        return Precision.BYTE;
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    @Override
+    public double get(int index) {
+        return data[index] & 0xFF;
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            values[offset + i] = data[index + i] & 0xFF;
+        }
+    }
+
+    @Override
+    public void set(int index, double value) {
+        data[index] = (byte) saturate(value, 0xFF);
+    }
+
+    @Override
+    public void set(int index, double[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            data[index + i] = (byte) saturate(values[offset + i], 0xFF);
+        }
+    }
+
+    private static int saturate(double value, int max) {
+        if (!(value > 0)) return 0;
+        if (value >= max) return max;
+        return (int) Math.rint(value);
+    }
+}
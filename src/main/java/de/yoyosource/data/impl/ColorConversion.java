@@ -0,0 +1,435 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.ColorSpace;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.RasterSource;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+public final class ColorConversion {
+
+    private static final double KR = 0.299;
+    private static final double KB = 0.114;
+    private static final double KG = 1 - KR - KB;
+    private static final double WHITE_X = 0.95047;
+    private static final double WHITE_Z = 1.08883;
+    private static final double EPSILON = 6.0 / 29;
+    private static final double[][] XYZ = {
+            {0.4124564, 0.3575761, 0.1804375},
+            {0.2126729, 0.7151522, 0.0721750},
+            {0.0193339, 0.1191920, 0.9503041}
+    };
+    private static final double[][] RGB = invert(XYZ);
+    private static final double[] LINEAR = new double[256];
+
+    static {
+        for (int i = 0; i < LINEAR.length; i++) {
+            LINEAR[i] = linearize(i / 255.0);
+        }
+    }
+
+    private final RasterSource red;
+    private final RasterSource green;
+    private final RasterSource blue;
+    private final ColorSpace[] spaces;
+    private final int width;
+    private final int height;
+    private volatile DoubleStorage[] planes;
+
+    public ColorConversion(RasterSource red, RasterSource green, RasterSource blue, ColorSpace... spaces) {
+        if (green.width() != red.width() || blue.width() != red.width() || green.height() != red.height() || blue.height() != red.height()) {
+            throw new IllegalArgumentException("Channels must have the same size");
+        }
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.spaces = spaces.clone();
+        this.width = red.width();
+        this.height = red.height();
+    }
+
+    public Map<ColorSpace, Raster[]> planes() {
+        Map<ColorSpace, Raster[]> planes = new EnumMap<>(ColorSpace.class);
+        int plane = 0;
+        for (ColorSpace space : spaces) {
+            Raster[] rasters = new Raster[space.planes()];
+            for (int i = 0; i < rasters.length; i++) {
+                rasters[i] = new RasterImpl(new Plane(plane++));
+            }
+            planes.put(space, rasters);
+        }
+        return planes;
+    }
+
+    public static Raster[] channels(ColorSpace space, Raster... planes) {
+        if (planes.length != space.planes()) {
+            throw new IllegalArgumentException(space + " needs " + space.planes() + " planes, got " + planes.length);
+        }
+        Inverse inverse = new Inverse(space, planes);
+        return new Raster[]{new RasterImpl(new Channel(inverse, 0)), new RasterImpl(new Channel(inverse, 1)), new RasterImpl(new Channel(inverse, 2))};
+    }
+
+    private DoubleStorage[] data() {
+        DoubleStorage[] planes = this.planes;
+        if (planes != null) return planes;
+        synchronized (this) {
+            if (this.planes != null) return this.planes;
+            int count = 0;
+            for (ColorSpace space : spaces) {
+                count += space.planes();
+            }
+            planes = new DoubleStorage[count];
+            double[][] data = new double[count][];
+            for (int i = 0; i < count; i++) {
+                data[i] = BufferArena.doubles(width * height);
+                planes[i] = BufferArena.adopt(new DoubleStorage(width, height, data[i]), data[i]);
+            }
+            Profiler.run("color " + Arrays.toString(spaces), (long) width * height, () -> Parallel.forRows(width, height, (from, to) -> OperandCache.interleaved(() -> {
+                double[] r = new double[Kernel.BLOCK_SIZE];
+                double[] g = new double[Kernel.BLOCK_SIZE];
+                double[] b = new double[Kernel.BLOCK_SIZE];
+                for (int block = from * width; block < to * width; block += Kernel.BLOCK_SIZE) {
+                    int length = Math.min(Kernel.BLOCK_SIZE, to * width - block);
+                    red.get(block, r, 0, length);
+                    green.get(block, g, 0, length);
+                    blue.get(block, b, 0, length);
+                    int plane = 0;
+                    for (ColorSpace space : spaces) {
+                        forward(space, r, g, b, length, data, plane, block);
+                        plane += space.planes();
+                    }
+                }
+            })));
+            this.planes = planes;
+            return planes;
+        }
+    }
+
+    public static void forward(ColorSpace space, double[] red, double[] green, double[] blue, int length, double[][] planes, int plane, int offset) {
+        switch (space) {
+            case LUMINANCE: {
+                double[] y = planes[plane];
+                for (int i = 0; i < length; i++) {
+                    y[offset + i] = red[i] * 0.2126 + green[i] * 0.7152 + blue[i] * 0.0722;
+                }
+                break;
+            }
+            case HSL:
+            case HSV: {
+                double[] hue = planes[plane];
+                double[] saturation = planes[plane + 1];
+                double[] value = planes[plane + 2];
+                boolean hsl = space == ColorSpace.HSL;
+                for (int i = 0; i < length; i++) {
+                    double r = red[i] / 255;
+                    double g = green[i] / 255;
+                    double b = blue[i] / 255;
+                    double max = Math.max(r, Math.max(g, b));
+                    double min = Math.min(r, Math.min(g, b));
+                    double delta = max - min;
+                    hue[offset + i] = hue(r, g, b, max, delta);
+                    if (hsl) {
+                        double lightness = (max + min) / 2;
+                        saturation[offset + i] = delta == 0 ? 0 : delta / (1 - Math.abs(2 * lightness - 1));
+                        value[offset + i] = lightness;
+                    } else {
+                        saturation[offset + i] = max == 0 ? 0 : delta / max;
+                        value[offset + i] = max;
+                    }
+                }
+                break;
+            }
+            case YCBCR: {
+                double[] y = planes[plane];
+                double[] cb = planes[plane + 1];
+                double[] cr = planes[plane + 2];
+                for (int i = 0; i < length; i++) {
+                    double r = red[i];
+                    double g = green[i];
+                    double b = blue[i];
+                    double luma = KR * r + KG * g + KB * b;
+                    y[offset + i] = luma;
+                    cb[offset + i] = 128 + (b - luma) / (2 * (1 - KB));
+                    cr[offset + i] = 128 + (r - luma) / (2 * (1 - KR));
+                }
+                break;
+            }
+            case LAB: {
+                double[] l = planes[plane];
+                double[] a = planes[plane + 1];
+                double[] bb = planes[plane + 2];
+                for (int i = 0; i < length; i++) {
+                    double r = linear(red[i]);
+                    double g = linear(green[i]);
+                    double b = linear(blue[i]);
+                    double x = f((XYZ[0][0] * r + XYZ[0][1] * g + XYZ[0][2] * b) / WHITE_X);
+                    double y = f(XYZ[1][0] * r + XYZ[1][1] * g + XYZ[1][2] * b);
+                    double z = f((XYZ[2][0] * r + XYZ[2][1] * g + XYZ[2][2] * b) / WHITE_Z);
+                    l[offset + i] = 116 * y - 16;
+                    a[offset + i] = 500 * (x - y);
+                    bb[offset + i] = 200 * (y - z);
+                }
+                break;
+            }
+        }
+    }
+
+    public static void inverse(ColorSpace space, double[][] planes, int length, double[] red, double[] green, double[] blue) {
+        switch (space) {
+            case LUMINANCE: {
+                double[] y = planes[0];
+                for (int i = 0; i < length; i++) {
+                    double value = channel(y[i]);
+                    red[i] = value;
+                    green[i] = value;
+                    blue[i] = value;
+                }
+                break;
+            }
+            case HSL:
+            case HSV: {
+                double[] hue = planes[0];
+                double[] saturation = planes[1];
+                double[] value = planes[2];
+                boolean hsl = space == ColorSpace.HSL;
+                for (int i = 0; i < length; i++) {
+                    double s = saturation[i];
+                    double v = value[i];
+                    double chroma = hsl ? (1 - Math.abs(2 * v - 1)) * s : v * s;
+                    double m = hsl ? v - chroma / 2 : v - chroma;
+                    double h = hue[i];
+                    if (h < 0 || h >= 360) h -= 360 * Math.floor(h / 360);
+                    double sector = h / 60;
+                    int whole = Math.min(5, (int) sector);
+                    double x = chroma * (1 - Math.abs(sector - (whole & ~1) - 1));
+                    double r;
+                    double g;
+                    double b;
+                    switch (whole) {
+                        case 0: r = chroma; g = x; b = 0; break;
+                        case 1: r = x; g = chroma; b = 0; break;
+                        case 2: r = 0; g = chroma; b = x; break;
+                        case 3: r = 0; g = x; b = chroma; break;
+                        case 4: r = x; g = 0; b = chroma; break;
+                        default: r = chroma; g = 0; b = x; break;
+                    }
+                    red[i] = channel((r + m) * 255);
+                    green[i] = channel((g + m) * 255);
+                    blue[i] = channel((b + m) * 255);
+                }
+                break;
+            }
+            case YCBCR: {
+                double[] y = planes[0];
+                double[] cb = planes[1];
+                double[] cr = planes[2];
+                for (int i = 0; i < length; i++) {
+                    double r = y[i] + 2 * (1 - KR) * (cr[i] - 128);
+                    double b = y[i] + 2 * (1 - KB) * (cb[i] - 128);
+                    red[i] = channel(r);
+                    green[i] = channel((y[i] - KR * r - KB * b) / KG);
+                    blue[i] = channel(b);
+                }
+                break;
+            }
+            case LAB: {
+                double[] l = planes[0];
+                double[] a = planes[1];
+                double[] bb = planes[2];
+                for (int i = 0; i < length; i++) {
+                    double fy = (l[i] + 16) / 116;
+                    double x = WHITE_X * finv(fy + a[i] / 500);
+                    double y = finv(fy);
+                    double z = WHITE_Z * finv(fy - bb[i] / 200);
+                    red[i] = channel(255 * gamma(RGB[0][0] * x + RGB[0][1] * y + RGB[0][2] * z));
+                    green[i] = channel(255 * gamma(RGB[1][0] * x + RGB[1][1] * y + RGB[1][2] * z));
+                    blue[i] = channel(255 * gamma(RGB[2][0] * x + RGB[2][1] * y + RGB[2][2] * z));
+                }
+                break;
+            }
+        }
+    }
+
+    private static double[][] invert(double[][] m) {
+        double determinant = m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+                - m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0])
+                + m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+        double[][] inverse = new double[3][3];
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                double[] a = m[(column + 1) % 3];
+                double[] b = m[(column + 2) % 3];
+                inverse[row][column] = (a[(row + 1) % 3] * b[(row + 2) % 3] - a[(row + 2) % 3] * b[(row + 1) % 3]) / determinant;
+            }
+        }
+        return inverse;
+    }
+
+    private static double hue(double r, double g, double b, double max, double delta) {
+        if (delta == 0) return 0;
+        double hue;
+        if (max == r) {
+            hue = (g - b) / delta;
+            if (hue < 0) hue += 6;
+        } else if (max == g) {
+            hue = (b - r) / delta + 2;
+        } else {
+            hue = (r - g) / delta + 4;
+        }
+        return hue * 60;
+    }
+
+    private static double linear(double value) {
+        int index = (int) value;
+        if (index == value && index >= 0 && index < LINEAR.length) return LINEAR[index];
+        return linearize(value / 255);
+    }
+
+    private static double linearize(double value) {
+        return value <= 0.04045 ? value / 12.92 : Math.pow((value + 0.055) / 1.055, 2.4);
+    }
+
+    private static double gamma(double value) {
+        return value <= 0.0031308 ? 12.92 * value : 1.055 * Math.pow(value, 1 / 2.4) - 0.055;
+    }
+
+    private static double f(double value) {
+        return value > EPSILON * EPSILON * EPSILON ? Math.cbrt(value) : value / (3 * EPSILON * EPSILON) + 4.0 / 29;
+    }
+
+    private static double finv(double value) {
+        return value > EPSILON ? value * value * value : 3 * EPSILON * EPSILON * (value - 4.0 / 29);
+    }
+
+    private static double channel(double value) {
+        double rounded = Math.rint(value);
+        if (Math.abs(value - rounded) < 1e-9) value = rounded;
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+
+    private final class Plane implements RasterSource {
+        private final int index;
+
+        private Plane(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int width() {
+            return width;
+        }
+
+        @Override
+        public int height() {
+            return height;
+        }
+
+        @Override
+        public double get(int index) {
+            return data()[this.index].get(index);
+        }
+
+        @Override
+        public void get(int index, double[] values, int offset, int length) {
+            data()[this.index].get(index, values, offset, length);
+        }
+
+        @Override
+        public Raster subRaster(int x, int y, int width, int height) {
+            DoubleStorage[] planes = ColorConversion.this.planes;
+            if (planes != null) return planes[index].subRaster(x, y, width, height);
+            ColorConversion region = new ColorConversion(red.subRaster(x, y, width, height), green.subRaster(x, y, width, height), blue.subRaster(x, y, width, height), spaces);
+            return new RasterImpl(region.new Plane(index));
+        }
+    }
+
+    private static final class Inverse {
+        private final ColorSpace space;
+        private final Raster[] planes;
+        private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+        private Inverse(ColorSpace space, Raster[] planes) {
+            for (Raster plane : planes) {
+                if (plane.width() != planes[0].width() || plane.height() != planes[0].height()) {
+                    throw new IllegalArgumentException("Planes must have the same size");
+                }
+            }
+            this.space = space;
+            this.planes = planes;
+        }
+
+        private double get(int channel, int index) {
+            return block(index, 1).rgb[channel][0];
+        }
+
+        private void get(int channel, int index, double[] values, int offset, int length) {
+            System.arraycopy(block(index, length).rgb[channel], 0, values, offset, length);
+        }
+
+        private Block block(int index, int length) {
+            Block block = blocks.get();
+            if (block.index != index || block.length != length) {
+                if (block.rgb[0].length < length) {
+                    block.planes = new double[planes.length][length];
+                    block.rgb = new double[3][length];
+                }
+                block.index = -1;
+                for (int i = 0; i < planes.length; i++) {
+                    planes[i].get(index, block.planes[i], 0, length);
+                }
+                inverse(space, block.planes, length, block.rgb[0], block.rgb[1], block.rgb[2]);
+                block.index = index;
+                block.length = length;
+            }
+            return block;
+        }
+    }
+
+    private static final class Channel implements RasterSource {
+        private final Inverse inverse;
+        private final int channel;
+
+        private Channel(Inverse inverse, int channel) {
+            this.inverse = inverse;
+            this.channel = channel;
+        }
+
+        @Override
+        public int width() {
+            return inverse.planes[0].width();
+        }
+
+        @Override
+        public int height() {
+            return inverse.planes[0].height();
+        }
+
+        @Override
+        public double get(int index) {
+            return inverse.get(channel, index);
+        }
+
+        @Override
+        public void get(int index, double[] values, int offset, int length) {
+            inverse.get(channel, index, values, offset, length);
+        }
+
+        @Override
+        public Raster subRaster(int x, int y, int width, int height) {
+            Raster[] planes = new Raster[inverse.planes.length];
+            for (int i = 0; i < planes.length; i++) {
+                planes[i] = inverse.planes[i].subRaster(x, y, width, height);
+            }
+            return channels(inverse.space, planes)[channel];
+        }
+    }
+
+    private static final class Block {
+        private int index = -1;
+        private int length;
+        private double[][] planes = new double[3][Kernel.BLOCK_SIZE];
+        private double[][] rgb = new double[3][Kernel.BLOCK_SIZE];
+    }
+}
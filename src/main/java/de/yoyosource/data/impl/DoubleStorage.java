@@ -0,0 +1,60 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.RasterStorage;
+
+public class DoubleStorage implements RasterStorage {
+
+    private final int width;
+    private final int height;
+    private final double[] data;
+
+    public DoubleStorage(int width, int height) {
+        this(width, height, new double[width * height]);
+    }
+
+    public DoubleStorage(int width, int height, double[] data) {
+        this.width = width;
+        this.height = height;
+        this.data = data;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public Precision precision() {
+        return Precision.DOUBLE;
+    }
+
+    public double[] data() {
+        return data;
+    }
+
+    @Override
+    public double get(int index) {
+        return data[index];
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        System.arraycopy(data, index, values, offset, length);
+    }
+
+    @Override
+    public void set(int index, double value) {
+        data[index] = value;
+    }
+
+    @Override
+    public void set(int index, double[] values, int offset, int length) {
+        System.arraycopy(values, offset, data, index, length);
+    }
+}
@@ -0,0 +1,173 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.RasterSource;
+import de.yoyosource.data.RasterStorage;
+
+import java.io.File;
+import java.io.IOException;
+
+public class EvaluatedSource implements RasterSource, RasterMemory.Evictable {
+
+    private final int width;
+    private final int height;
+    private final Precision precision;
+    private final boolean recomputable;
+    private RasterSource source;
+    private Kernel kernel;
+
+    private volatile RasterStorage data;
+    private RasterStorage buffer;
+    private Parallel.Job job;
+    private volatile RasterMemory.Entry entry;
+    private long nanos;
+
+    public EvaluatedSource(RasterSource source, Kernel kernel, Precision precision) {
+        this.width = source.width();
+        this.height = source.height();
+        this.source = source;
+        this.kernel = kernel;
+        this.precision = precision;
+        this.recomputable = RasterMemory.isBounded();
+    }
+
+    public static EvaluatedSource of(RasterSource source, RasterStorage data) {
+        EvaluatedSource evaluated = new EvaluatedSource(source, Kernel.IDENTITY, data.precision());
+        evaluated.data = data;
+        if (!evaluated.recomputable) evaluated.source = null;
+        evaluated.entry = RasterMemory.admit(evaluated, null, data.bytes());
+        return evaluated;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public double get(int index) {
+        RasterStorage data = this.data;
+        if (data == null) return data().get(index);
+        RasterMemory.Entry entry = this.entry;
+        if (entry != null) entry.touch(index, width);
+        return data.get(index);
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        data().get(index, values, offset, length);
+    }
+
+    public RasterStorage data() {
+        RasterStorage data = this.data;
+        if (data != null) {
+            RasterMemory.Entry entry = this.entry;
+            if (entry != null) entry.touch();
+            return data;
+        }
+
+        Parallel.Job job;
+        RasterStorage buffer;
+        boolean owner = false;
+        String name;
+        synchronized (this) {
+            if (this.data != null) return this.data;
+            if (this.job == null && this.source == null) throw new IllegalStateException("Raster has been discarded");
+            File spill = entry == null ? null : entry.spill();
+            name = spill != null ? "reload " + precision : "eval " + precision;
+            if (this.job == null) {
+                owner = true;
+                RasterStorage target = RasterStorage.borrow(precision, width, height);
+                RasterSource source = spill != null ? open(spill) : this.source;
+                Kernel kernel = spill != null ? Kernel.IDENTITY : this.kernel;
+                this.buffer = target;
+                this.job = Parallel.job(height, width, (from, to) -> kernel.fill(source, target, from * width, to * width));
+            }
+            job = this.job;
+            buffer = this.buffer;
+        }
+        if (owner) {
+            long start = System.nanoTime();
+            Profiler.run(name, (long) width * height, job::invoke);
+            nanos = Math.max(nanos, System.nanoTime() - start);
+        } else {
+            job.invoke();
+        }
+        synchronized (this) {
+            if (this.data == null) {
+                this.data = buffer;
+                this.buffer = null;
+                this.job = null;
+                if (!recomputable) {
+                    this.source = null;
+                    this.kernel = null;
+                }
+            }
+        }
+        if (owner) {
+            entry = RasterMemory.admit(this, entry, (long) width * height * precision.bytes());
+        }
+        return buffer;
+    }
+
+    public synchronized void discard() {
+        if (job != null) return;
+        RasterStorage data = this.data;
+        RasterMemory.Entry entry = this.entry;
+        this.data = null;
+        this.entry = null;
+        if (!recomputable) {
+            this.source = null;
+            this.kernel = null;
+        }
+        if (entry != null) RasterMemory.discard(entry);
+        if (data instanceof ByteStorage) {
+            BufferArena.release(((ByteStorage) data).data());
+        } else if (data instanceof ShortStorage) {
+            BufferArena.release(((ShortStorage) data).data());
+        } else if (data instanceof FloatStorage) {
+            BufferArena.release(((FloatStorage) data).data());
+        } else if (data instanceof DoubleStorage) {
+            BufferArena.release(((DoubleStorage) data).data());
+        }
+    }
+
+    @Override
+    public synchronized boolean evict(File spillDirectory) {
+        RasterStorage data = this.data;
+        if (data == null || job != null || entry == null) return false;
+        if (entry.spill() == null) {
+            long bytes = (long) width * height * precision.bytes();
+            boolean spill = spillDirectory != null && (!recomputable || nanos > bytes);
+            if (spill) {
+                File file = RasterMemory.spillFile(spillDirectory);
+                try {
+                    Profiler.run("spill " + precision, (long) width * height, () -> RasterFile.write(new RasterImpl(data), precision, file));
+                } catch (IOException e) {
+                    file.delete();
+                    return false;
+                }
+                entry.spill(file);
+                RasterMemory.spilled();
+            } else if (!recomputable) {
+                return false;
+            }
+        }
+        this.data = null;
+        return true;
+    }
+
+    private static Raster open(File spill) {
+        try {
+            return RasterFile.open(spill);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
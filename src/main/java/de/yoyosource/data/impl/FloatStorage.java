@@ -0,0 +1,64 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.RasterStorage;
+
+public class FloatStorage implements RasterStorage {
+
+    private final int width;
+    private final int height;
+    private final float[] data;
+
+    public FloatStorage(int width, int height) {
+        this(width, height, new float[width * height]);
+    }
+
+    public FloatStorage(int width, int height, float[] data) {
+        this.width = width;
+        this.height = height;
+        this.data = data;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public Precision precision() {
+        return Precision.FLOAT;
+    }
+
+    public float[] data() {
+        return data;
+    }
+
+    @Override
+    public double get(int index) {
+        return data[index];
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            values[offset + i] = data[index + i];
+        }
+    }
+
+    @Override
+    public void set(int index, double value) {
+        data[index] = (float) value;
+    }
+
+    @Override
+    public void set(int index, double[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            data[index + i] = (float) values[offset + i];
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package de.yoyosource.data.impl;
 
-import de.yoyosource.data.Color;
+import de.yoyosource.data.ColorPredicate;
+import de.yoyosource.data.ColorSpace;
 import de.yoyosource.data.Image;
+import de.yoyosource.data.Mask;
 import de.yoyosource.data.Raster;
-import de.yoyosource.data.RasterSource;
+import de.yoyosource.data.RasterStorage;
 
-import javax.imageio.ImageIO;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.function.Predicate;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.UnaryOperator;
 
 public class ImageImpl implements Image {
@@ -19,98 +25,169 @@ public class ImageImpl implements Image {
     private Raster green;
     private Raster blue;
     private Raster alpha;
+    private WeakReference<ImageImpl> previous;
+    private Rectangle dirty;
+    private Mask mask;
+    private Map<ColorSpace, Raster[]> colors = new EnumMap<>(ColorSpace.class);
+
+    public ImageImpl(Raster red, Raster green, Raster blue, Raster alpha) {
+        this.width = red.width();
+        this.height = red.height();
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.alpha = alpha;
+    }
 
     public ImageImpl(BufferedImage image) {
         if (image == null) return;
         this.width = image.getWidth();
         this.height = image.getHeight();
-        double[] redData = new double[width * height];
-        double redMax = 0, redMin = 0;
-        double[] greenData = new double[width * height];
-        double greenMax = 0, greenMin = 0;
-        double[] blueData = new double[width * height];
-        double blueMax = 0, blueMin = 0;
-        double[] alphaData = new double[width * height];
-        double alphaMax = 0, alphaMin = 0;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                double red = (rgb >> 16) & 0xFF;
-                redMax = Math.max(redMax, red);
-                redMin = Math.min(redMin, red);
-                redData[y * width + x] = red;
-                double green = (rgb >> 8) & 0xFF;
-                greenMax = Math.max(greenMax, green);
-                greenMin = Math.min(greenMin, green);
-                greenData[y * width + x] = green;
-                double blue = rgb & 0xFF;
-                blueMax = Math.max(blueMax, blue);
-                blueMin = Math.min(blueMin, blue);
-                blueData[y * width + x] = blue;
-                double alpha = (rgb >> 24) & 0xFF;
-                alphaMax = Math.max(alphaMax, alpha);
-                alphaMin = Math.min(alphaMin, alpha);
-                alphaData[y * width + x] = alpha;
-            }
-        }
-        this.red = new RasterImpl(new ImageDataSource(width, height, redData), redMin, redMax);
-        this.green = new RasterImpl(new ImageDataSource(width, height, greenData), greenMin, greenMax);
-        this.blue = new RasterImpl(new ImageDataSource(width, height, blueData), blueMin, blueMax);
-        this.alpha = new RasterImpl(new ImageDataSource(width, height, alphaData), alphaMin, alphaMax);
+        byte[][] channels = {BufferArena.bytes(width * height), BufferArena.bytes(width * height), BufferArena.bytes(width * height), BufferArena.bytes(width * height)};
+        double[] bounds = Profiler.time("unpack", (long) width * height, () -> PixelCodec.unpack(image, channels));
+        this.red = channel(channels, bounds, PixelCodec.RED);
+        this.green = channel(channels, bounds, PixelCodec.GREEN);
+        this.blue = channel(channels, bounds, PixelCodec.BLUE);
+        this.alpha = channel(channels, bounds, PixelCodec.ALPHA);
     }
 
-    private class ImageDataSource implements RasterSource {
-        private int width;
-        private int height;
-        private double[] data;
+    private RasterImpl channel(byte[][] channels, double[] bounds, int index) {
+        ByteStorage storage = BufferArena.adopt(new ByteStorage(width, height, channels[index]), channels[index]);
+        return new RasterImpl(storage, bounds[index], bounds[4 + index]);
+    }
 
-        public ImageDataSource(int width, int height, double[] data) {
-            this.width = width;
-            this.height = height;
-            this.data = data;
-        }
+    public static ImageImpl of(ColorSpace space, Raster alpha, Raster... planes) {
+        Raster[] channels = ColorConversion.channels(space, planes);
+        ImageImpl image = new ImageImpl(channels[0], channels[1], channels[2], alpha);
+        image.colors.put(space, planes.clone());
+        return image;
+    }
 
-        @Override
-        public int width() {
-            return width;
-        }
+    @Override
+    public int width() {
+        return width;
+    }
 
-        @Override
-        public int height() {
-            return height;
-        }
+    @Override
+    public int height() {
+        return height;
+    }
 
-        @Override
-        public double get(int index) {
-            return data[index];
+    public ImageImpl update(int x, int y, BufferedImage patch) {
+        Rectangle dirty = new Rectangle(x, y, patch.getWidth(), patch.getHeight()).intersection(new Rectangle(0, 0, width, height));
+        if (dirty.isEmpty()) dirty = new Rectangle();
+        byte[][] patches = new byte[4][patch.getWidth() * patch.getHeight()];
+        Profiler.run("unpack", (long) patch.getWidth() * patch.getHeight(), () -> PixelCodec.unpack(patch, patches));
+        Raster[] channels = {red, green, blue, alpha};
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = new RasterImpl(rows(channels[i]).patch(dirty, patches[i], (dirty.y - y) * patch.getWidth() + dirty.x - x, patch.getWidth()));
         }
+        ImageImpl image = new ImageImpl(channels[0], channels[1], channels[2], channels[3]);
+        image.mask = mask;
+        image.previous = new WeakReference<>(this);
+        image.dirty = dirty;
+        return image;
+    }
+
+    public ImageImpl previous() {
+        return previous == null ? null : previous.get();
+    }
+
+    public Rectangle dirty() {
+        return dirty == null ? null : new Rectangle(dirty);
+    }
+
+    private ByteRowStorage rows(Raster channel) {
+        RasterStorage storage = channel instanceof RasterImpl ? ((RasterImpl) channel).storage() : null;
+        if (storage instanceof ByteRowStorage) return (ByteRowStorage) storage;
+        if (storage instanceof ByteStorage) return ByteRowStorage.of(width, height, ((ByteStorage) storage).data());
+        byte[] data = BufferArena.bytes(width * height);
+        ByteStorage target = new ByteStorage(width, height, data);
+        Parallel.forRows(width, height, (from, to) -> Kernel.IDENTITY.fill(channel, target, from * width, to * width));
+        ByteRowStorage rows = ByteRowStorage.of(width, height, data);
+        BufferArena.release(data);
+        return rows;
+    }
+
+    @Override
+    public Raster red() {
+        return red;
+    }
+
+    @Override
+    public Raster green() {
+        return green;
+    }
+
+    @Override
+    public Raster blue() {
+        return blue;
+    }
+
+    @Override
+    public Raster alpha() {
+        return alpha;
     }
 
     @Override
     public void write(File file) {
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = ((int) alpha.get(x, y) << 24) | ((int) red.get(x, y) << 16) | ((int) green.get(x, y) << 8) | (int) blue.get(x, y);
-                image.setRGB(x, y, rgb);
-            }
-        }
         try {
-            ImageIO.write(image, "png", file);
+            Profiler.run("write", (long) width * height, () -> new PngWriter().write(this, file));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    public Image eval() {
+        Raster[] channels = {red, green, blue, alpha};
+        DoubleStorage[] storages = new DoubleStorage[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            if (channels[i] instanceof RasterImpl && ((RasterImpl) channels[i]).isMasked()) {
+                channels[i] = channels[i].eval();
+            }
+            if (!(channels[i] instanceof RasterImpl) || !((RasterImpl) channels[i]).isMaterialized()) {
+                double[] data = BufferArena.doubles(width * height);
+                storages[i] = BufferArena.adopt(new DoubleStorage(width, height, data), data);
+            }
+        }
+        Profiler.run("image eval", (long) width * height, () -> Parallel.forRows(width, height, (from, to) -> OperandCache.interleaved(() -> {
+            for (int block = from * width; block < to * width; block += Kernel.BLOCK_SIZE) {
+                int length = Math.min(Kernel.BLOCK_SIZE, to * width - block);
+                for (int i = 0; i < channels.length; i++) {
+                    if (storages[i] != null) channels[i].get(block, storages[i].data(), block, length);
+                }
+            }
+        })));
+        for (int i = 0; i < channels.length; i++) {
+            if (storages[i] != null) channels[i] = new RasterImpl(EvaluatedSource.of(channels[i], storages[i]));
+        }
+        ImageImpl image = new ImageImpl(channels[0], channels[1], channels[2], channels[3]);
+        image.mask = mask;
+        return image;
+    }
+
+    @Override
+    public Image map(UnaryOperator<Raster> operator) {
+        ImageImpl image = new ImageImpl(apply(red, operator), apply(green, operator), apply(blue, operator), alpha);
+        image.mask = mask;
+        return image;
+    }
+
+    private Raster apply(Raster channel, UnaryOperator<Raster> operator) {
+        return mask == null ? operator.apply(channel) : channel.masked(mask, operator);
+    }
+
     @Override
     public Image mapRed(UnaryOperator<Raster> operator) {
         ImageImpl image = new ImageImpl(null);
         image.width = width;
         image.height = height;
-        image.red = operator.apply(red.eval());
+        image.red = apply(red, operator);
         image.green = green;
         image.blue = blue;
         image.alpha = alpha;
+        image.mask = mask;
         return image;
     }
 
@@ -120,9 +197,10 @@ public class ImageImpl implements Image {
         image.width = width;
         image.height = height;
         image.red = red;
-        image.green = operator.apply(green.eval());
+        image.green = apply(green, operator);
         image.blue = blue;
         image.alpha = alpha;
+        image.mask = mask;
         return image;
     }
 
@@ -133,8 +211,9 @@ public class ImageImpl implements Image {
         image.height = height;
         image.red = red;
         image.green = green;
-        image.blue = operator.apply(blue.eval());
+        image.blue = apply(blue, operator);
         image.alpha = alpha;
+        image.mask = mask;
         return image;
     }
 
@@ -146,32 +225,46 @@ public class ImageImpl implements Image {
         image.red = red;
         image.green = green;
         image.blue = blue;
-        image.alpha = operator.apply(alpha);
+        image.alpha = apply(alpha, operator);
+        image.mask = mask;
+        image.colors = colors;
         return image;
     }
 
     @Override
-    public Image filter(Predicate<Color> filter) {
-        return null;
+    public Image filter(ColorPredicate filter) {
+        Mask selection = Mask.of(this, filter);
+        ImageImpl image = new ImageImpl(red, green, blue, alpha);
+        image.mask = mask == null ? selection : mask.and(selection);
+        image.colors = colors;
+        return image;
+    }
+
+    @Override
+    public Mask mask() {
+        return mask;
     }
 
     @Override
     public Raster lightness() {
-        return new RasterImpl(new RasterSource() {
-            @Override
-            public int width() {
-                return width;
-            }
+        return planes(ColorSpace.LUMINANCE)[0];
+    }
 
-            @Override
-            public int height() {
-                return height;
+    @Override
+    public Raster[] planes(ColorSpace... spaces) {
+        List<Raster> planes = new ArrayList<>();
+        synchronized (colors) {
+            List<ColorSpace> missing = new ArrayList<>();
+            for (ColorSpace space : spaces) {
+                if (!colors.containsKey(space) && !missing.contains(space)) missing.add(space);
             }
-
-            @Override
-            public double get(int index) {
-                return red.get(index) * 0.2126 + green.get(index) * 0.7152 + blue.get(index) * 0.0722;
+            if (!missing.isEmpty()) {
+                colors.putAll(new ColorConversion(red, green, blue, missing.toArray(new ColorSpace[0])).planes());
+            }
+            for (ColorSpace space : spaces) {
+                planes.addAll(List.of(colors.get(space)));
             }
-        });
+        }
+        return planes.toArray(new Raster[0]);
     }
 }
@@ -0,0 +1,74 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.RasterSource;
+import de.yoyosource.data.RasterStorage;
+
+import java.util.List;
+
+public final class Kernel {
+
+    public static final int BLOCK_SIZE = 1024;
+
+    private static final Operator[] EMPTY = new Operator[0];
+    public static final Kernel IDENTITY = new Kernel(EMPTY);
+
+    private final Operator[] operators;
+
+    private Kernel(Operator[] operators) {
+        this.operators = operators;
+    }
+
+    public static Kernel compile(List<Operator> operators) {
+        if (operators.isEmpty()) return IDENTITY;
+        return new Kernel(operators.toArray(EMPTY));
+    }
+
+    public boolean isIdentity() {
+        return operators.length == 0;
+    }
+
+    public double apply(int index, double value) {
+        for (Operator operator : operators) {
+            value = operator.apply(index, value);
+        }
+        return value;
+    }
+
+    public void apply(int index, double[] values, int offset, int length) {
+        if (Profiler.isEnabled()) {
+            profiled(index, values, offset, length);
+            return;
+        }
+        for (Operator operator : operators) {
+            operator.apply(index, values, offset, length);
+        }
+    }
+
+    private void profiled(int index, double[] values, int offset, int length) {
+        for (Operator operator : operators) {
+            Profiler.operator(operator, length, () -> operator.apply(index, values, offset, length));
+        }
+    }
+
+    public void fill(RasterSource source, double[] target, int from, int to) {
+        for (int block = from; block < to; block += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, to - block);
+            source.get(block, target, block, length);
+            apply(block, target, block, length);
+        }
+    }
+
+    public void fill(RasterSource source, RasterStorage target, int from, int to) {
+        if (target instanceof DoubleStorage) {
+            fill(source, ((DoubleStorage) target).data(), from, to);
+            return;
+        }
+        double[] values = new double[Math.min(BLOCK_SIZE, to - from)];
+        for (int block = from; block < to; block += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, to - block);
+            source.get(block, values, 0, length);
+            apply(block, values, 0, length);
+            target.set(block, values, 0, length);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.RasterSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+public class MappedRaster implements RasterSource {
+
+    private static final int CHUNK_SHIFT = 30;
+
+    private final int width;
+    private final int height;
+    private final Precision precision;
+    private final int elementShift;
+    private final ByteBuffer[] chunks;
+
+    MappedRaster(FileChannel channel, int width, int height, Precision precision) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.precision = precision;
+        this.elementShift = Integer.numberOfTrailingZeros(precision.bytes());
+
+        long size = (long) width * height * precision.bytes();
+        int count = (int) ((size + (1L << CHUNK_SHIFT) - 1) >> CHUNK_SHIFT);
+        this.chunks = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = (long) i << CHUNK_SHIFT;
+            long length = Math.min(1L << CHUNK_SHIFT, size - offset);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, RasterFile.HEADER_SIZE + offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    public Precision precision() {
+        return precision;
+    }
+
+    @Override
+    public double get(int index) {
+        long offset = (long) index << elementShift;
+        ByteBuffer chunk = chunks[(int) (offset >> CHUNK_SHIFT)];
+        int position = (int) (offset & ((1L << CHUNK_SHIFT) - 1));
+        switch (precision) {
+            case BYTE:
+                return chunk.get(position) & 0xFF;
+            case SHORT:
+                return chunk.getShort(position) & 0xFFFF;
+            case FLOAT:
+                return chunk.getFloat(position);
+            default:
+                return chunk.getDouble(position);
+        }
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        int perChunk = 1 << (CHUNK_SHIFT - elementShift);
+        while (length > 0) {
+            ByteBuffer chunk = chunks[index / perChunk];
+            int start = index % perChunk;
+            int count = Math.min(length, perChunk - start);
+            int position = start << elementShift;
+            switch (precision) {
+                case BYTE:
+                    for (int i = 0; i < count; i++) values[offset + i] = chunk.get(position + i) & 0xFF;
+                    break;
+                case SHORT:
+                    for (int i = 0; i < count; i++) values[offset + i] = chunk.getShort(position + (i << 1)) & 0xFFFF;
+                    break;
+                case FLOAT:
+                    for (int i = 0; i < count; i++) values[offset + i] = chunk.getFloat(position + (i << 2));
+                    break;
+                default:
+                    for (int i = 0; i < count; i++) values[offset + i] = chunk.getDouble(position + (i << 3));
+                    break;
+            }
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Mask;
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.RasterSource;
+import de.yoyosource.data.RasterStorage;
+
+public class MaskedSource implements RasterSource {
+
+    private static final int RUN_COST = 16;
+    private static final ThreadLocal<double[]> SCRATCH = ThreadLocal.withInitial(() -> new double[Kernel.BLOCK_SIZE]);
+
+    private final RasterSource base;
+    private final RasterSource selected;
+    private final Mask mask;
+
+    public MaskedSource(RasterSource base, RasterSource selected, Mask mask) {
+        if (base.width() != mask.width() || base.height() != mask.height() || selected.width() != mask.width() || selected.height() != mask.height()) {
+            throw new IllegalArgumentException("Mask and rasters must have the same size");
+        }
+        this.base = base;
+        this.selected = selected;
+        this.mask = mask;
+    }
+
+    @Override
+    public int width() {
+        return mask.width();
+    }
+
+    @Override
+    public int height() {
+        return mask.height();
+    }
+
+    public boolean isMaterialized() {
+        return selected instanceof Packed && (base instanceof RasterStorage || base instanceof EvaluatedSource || base instanceof MappedRaster);
+    }
+
+    public MaskedSource evaluate(Precision precision) {
+        if (isMaterialized()) return this;
+        RasterSource base = this.base;
+        if (!(base instanceof RasterStorage || base instanceof EvaluatedSource || base instanceof MappedRaster)) {
+            base = new EvaluatedSource(base, Kernel.IDENTITY, precision);
+        }
+        double[] values = new double[mask.count()];
+        int width = width();
+        Profiler.run("masked eval", values.length, () -> Parallel.forEach(height(), (long) width * values.length / Math.max(1, width * height()), (from, to) -> OperandCache.interleaved(() -> {
+            for (int block = from * width, end = to * width; block < end; block += Kernel.BLOCK_SIZE) {
+                select(block, Math.min(end, block + Kernel.BLOCK_SIZE), values, 0, true);
+            }
+        })));
+        return new MaskedSource(base, new Packed(mask, values), mask);
+    }
+
+    @Override
+    public double get(int index) {
+        return mask.contains(index) ? selected.get(index) : base.get(index);
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        int end = index + length;
+        int run = mask.nextSetBit(index, end);
+        if (run >= end) {
+            base.get(index, values, offset, length);
+            return;
+        }
+        if (run == index && mask.nextClearBit(index, end) >= end) {
+            selected.get(index, values, offset, length);
+            return;
+        }
+        base.get(index, values, offset, length);
+        select(index, end, values, offset, false);
+    }
+
+    private void select(int index, int end, double[] values, int offset, boolean packed) {
+        int run = mask.nextSetBit(index, end);
+        if (run >= end) return;
+        double[] span = null;
+        int first = run;
+        if (!(selected instanceof Packed) && mask.runs(run, end) * RUN_COST >= end - run) {
+            span = SCRATCH.get();
+            if (span.length < end - run) {
+                span = new double[end - run];
+                SCRATCH.set(span);
+            }
+            selected.get(run, span, 0, end - run);
+        }
+        while (run < end) {
+            int stop = mask.nextClearBit(run, end);
+            int target = packed ? mask.rank(run) : offset + run - index;
+            if (span != null) {
+                System.arraycopy(span, run - first, values, target, stop - run);
+            } else {
+                selected.get(run, values, target, stop - run);
+            }
+            run = mask.nextSetBit(stop, end);
+        }
+    }
+
+    private static final class Packed implements RasterSource {
+        private final Mask mask;
+        private final double[] values;
+
+        private Packed(Mask mask, double[] values) {
+            this.mask = mask;
+            this.values = values;
+        }
+
+        @Override
+        public int width() {
+            return mask.width();
+        }
+
+        @Override
+        public int height() {
+            return mask.height();
+        }
+
+        @Override
+        public double get(int index) {
+            return values[mask.rank(index)];
+        }
+
+        @Override
+        public void get(int index, double[] values, int offset, int length) {
+            System.arraycopy(this.values, mask.rank(index), values, offset, length);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.RasterSource;
+
+import java.util.Arrays;
+
+public final class OperandCache {
+
+    private static final ThreadLocal<OperandCache> CURRENT = ThreadLocal.withInitial(OperandCache::new);
+
+    private RasterSource[] sources = new RasterSource[8];
+    private int[] indexes = new int[8];
+    private int[] lengths = new int[8];
+    private int[] pins = new int[8];
+    private double[][] values = new double[8][];
+    private int next;
+    private int depth;
+
+    private OperandCache() {
+    }
+
+    public static void interleaved(Runnable runnable) {
+        OperandCache cache = CURRENT.get();
+        cache.depth++;
+        try {
+            runnable.run();
+        } finally {
+            if (--cache.depth == 0) {
+                Arrays.fill(cache.sources, null);
+            }
+        }
+    }
+
+    static OperandCache current() {
+        return CURRENT.get();
+    }
+
+    int acquire(RasterSource source, int index, int length) {
+        if (depth > 0) {
+            for (int slot = 0; slot < sources.length; slot++) {
+                if (sources[slot] == source && indexes[slot] == index && lengths[slot] == length) {
+                    pins[slot]++;
+                    return slot;
+                }
+            }
+        }
+
+        int slot = victim();
+        sources[slot] = null;
+        pins[slot]++;
+        if (values[slot] == null || values[slot].length < length) {
+            values[slot] = new double[Math.max(length, Kernel.BLOCK_SIZE)];
+        }
+        source.get(index, values[slot], 0, length);
+        if (depth > 0) {
+            sources[slot] = source;
+            indexes[slot] = index;
+            lengths[slot] = length;
+        }
+        return slot;
+    }
+
+    double[] values(int slot) {
+        return values[slot];
+    }
+
+    void release(int slot) {
+        pins[slot]--;
+    }
+
+    private int victim() {
+        for (int i = 0; i < sources.length; i++) {
+            int slot = (next + i) % sources.length;
+            if (pins[slot] == 0) {
+                next = (slot + 1) % sources.length;
+                return slot;
+            }
+        }
+
+        int slot = sources.length;
+        int size = slot * 2;
+        sources = Arrays.copyOf(sources, size);
+        indexes = Arrays.copyOf(indexes, size);
+        lengths = Arrays.copyOf(lengths, size);
+        pins = Arrays.copyOf(pins, size);
+        values = Arrays.copyOf(values, size);
+        next = slot + 1;
+        return slot;
+    }
+}
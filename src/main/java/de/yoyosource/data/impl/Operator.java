@@ -0,0 +1,21 @@
+package de.yoyosource.data.impl;
+
+public interface Operator {
+    double apply(int index, double value);
+
+    default void apply(int index, double[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            values[offset + i] = apply(index + i, values[offset + i]);
+        }
+    }
+
+    default Operator region(int x, int y, int width, int height) {
+        return null;
+    }
+
+    default String name() {
+        String name = getClass().getSimpleName();
+        int lambda = name.indexOf("$$Lambda");
+        return lambda < 0 ? name : name.substring(0, lambda) + " lambda";
+    }
+}
@@ -0,0 +1,523 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Histogram;
+import de.yoyosource.data.RasterSource;
+
+public final class Operators {
+
+    private Operators() {
+    }
+
+    public static Operator add(double value) {
+        return new Add(value);
+    }
+
+    public static Operator subtract(double value) {
+        return new Subtract(value);
+    }
+
+    public static Operator multiply(double value) {
+        return new Multiply(value);
+    }
+
+    public static Operator divide(double value) {
+        return new Divide(value);
+    }
+
+    public static Operator mod(double value) {
+        return new Mod(value);
+    }
+
+    public static Operator clamp(double min, double max) {
+        return new Clamp(min, max);
+    }
+
+    public static Operator min(double value) {
+        return new Min(value);
+    }
+
+    public static Operator min(double value, double cutOffValue) {
+        return new MinCutOff(value, cutOffValue);
+    }
+
+    public static Operator max(double value) {
+        return new Max(value);
+    }
+
+    public static Operator max(double value, double cutOffValue) {
+        return new MaxCutOff(value, cutOffValue);
+    }
+
+    public static Operator invert(double max) {
+        return new Invert(max);
+    }
+
+    public static Operator equalize(Histogram histogram) {
+        return new Equalize(histogram);
+    }
+
+    public static Operator add(RasterSource raster) {
+        return new RasterAdd(raster);
+    }
+
+    public static Operator subtract(RasterSource raster) {
+        return new RasterSubtract(raster);
+    }
+
+    public static Operator multiply(RasterSource raster) {
+        return new RasterMultiply(raster);
+    }
+
+    public static Operator divide(RasterSource raster) {
+        return new RasterDivide(raster);
+    }
+
+    public static Operator mod(RasterSource raster) {
+        return new RasterMod(raster);
+    }
+
+    public static Operator clamp(RasterSource min, RasterSource max) {
+        return new RasterClamp(min, max);
+    }
+
+    public static Operator min(RasterSource raster) {
+        return new RasterMin(raster);
+    }
+
+    public static Operator max(RasterSource raster) {
+        return new RasterMax(raster);
+    }
+
+    private interface Pointwise extends Operator {
+        @Override
+        default Operator region(int x, int y, int width, int height) {
+            return this;
+        }
+    }
+
+    private static final class Add implements Pointwise {
+        private final double value;
+
+        private Add(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return d + value;
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().add(values, offset, length, value);
+        }
+    }
+
+    private static final class Subtract implements Pointwise {
+        private final double value;
+
+        private Subtract(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return d - value;
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().subtract(values, offset, length, value);
+        }
+    }
+
+    private static final class Multiply implements Pointwise {
+        private final double value;
+
+        private Multiply(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return d * value;
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().multiply(values, offset, length, value);
+        }
+    }
+
+    private static final class Divide implements Pointwise {
+        private final double value;
+
+        private Divide(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return d / value;
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().divide(values, offset, length, value);
+        }
+    }
+
+    private static final class Mod implements Pointwise {
+        private final double value;
+
+        private Mod(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return d % value;
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                values[i] = values[i] % value;
+            }
+        }
+    }
+
+    private static final class Clamp implements Pointwise {
+        private final double min;
+        private final double max;
+
+        private Clamp(double min, double max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return Math.min(Math.max(d, min), max);
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().clamp(values, offset, length, min, max);
+        }
+    }
+
+    private static final class Min implements Pointwise {
+        private final double value;
+
+        private Min(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return Math.min(d, value);
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().min(values, offset, length, value);
+        }
+    }
+
+    private static final class MinCutOff implements Pointwise {
+        private final double value;
+        private final double cutOffValue;
+
+        private MinCutOff(double value, double cutOffValue) {
+            this.value = value;
+            this.cutOffValue = cutOffValue;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return d < value ? cutOffValue : d;
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().minCutOff(values, offset, length, value, cutOffValue);
+        }
+    }
+
+    private static final class Max implements Pointwise {
+        private final double value;
+
+        private Max(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return Math.max(d, value);
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().max(values, offset, length, value);
+        }
+    }
+
+    private static final class MaxCutOff implements Pointwise {
+        private final double value;
+        private final double cutOffValue;
+
+        private MaxCutOff(double value, double cutOffValue) {
+            this.value = value;
+            this.cutOffValue = cutOffValue;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return d > value ? cutOffValue : d;
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().maxCutOff(values, offset, length, value, cutOffValue);
+        }
+    }
+
+    private static final class Invert implements Pointwise {
+        private final double max;
+
+        private Invert(double max) {
+            this.max = max;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return max - d;
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            ArrayOps.get().invert(values, offset, length, max);
+        }
+    }
+
+    private static final class Equalize implements Pointwise {
+        private final Histogram histogram;
+
+        private Equalize(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return histogram.cdf(d);
+        }
+    }
+
+    private abstract static class BinaryRaster implements Operator {
+        protected final RasterSource raster;
+
+        private BinaryRaster(RasterSource raster) {
+            this.raster = raster;
+        }
+
+        protected abstract double apply(double a, double b);
+
+        protected void apply(double[] values, int offset, double[] operand, int length) {
+            for (int i = 0, o = offset; i < length; i++, o++) {
+                values[o] = apply(values[o], operand[i]);
+            }
+        }
+
+        protected abstract BinaryRaster with(RasterSource raster);
+
+        @Override
+        public double apply(int index, double d) {
+            return apply(d, raster.get(index));
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            OperandCache cache = OperandCache.current();
+            for (int block = 0; block < length; block += Kernel.BLOCK_SIZE) {
+                int count = Math.min(Kernel.BLOCK_SIZE, length - block);
+                int slot = cache.acquire(raster, index + block, count);
+                apply(values, offset + block, cache.values(slot), count);
+                cache.release(slot);
+            }
+        }
+
+        @Override
+        public Operator region(int x, int y, int width, int height) {
+            return with(raster.subRaster(x, y, width, height));
+        }
+    }
+
+    private static final class RasterAdd extends BinaryRaster {
+        private RasterAdd(RasterSource raster) {
+            super(raster);
+        }
+
+        @Override
+        protected double apply(double a, double b) {
+            return a + b;
+        }
+
+        @Override
+        protected void apply(double[] values, int offset, double[] operand, int length) {
+            ArrayOps.get().add(values, offset, operand, length);
+        }
+
+        @Override
+        protected BinaryRaster with(RasterSource raster) {
+            return new RasterAdd(raster);
+        }
+    }
+
+    private static final class RasterSubtract extends BinaryRaster {
+        private RasterSubtract(RasterSource raster) {
+            super(raster);
+        }
+
+        @Override
+        protected double apply(double a, double b) {
+            return a - b;
+        }
+
+        @Override
+        protected void apply(double[] values, int offset, double[] operand, int length) {
+            ArrayOps.get().subtract(values, offset, operand, length);
+        }
+
+        @Override
+        protected BinaryRaster with(RasterSource raster) {
+            return new RasterSubtract(raster);
+        }
+    }
+
+    private static final class RasterMultiply extends BinaryRaster {
+        private RasterMultiply(RasterSource raster) {
+            super(raster);
+        }
+
+        @Override
+        protected double apply(double a, double b) {
+            return a * b;
+        }
+
+        @Override
+        protected void apply(double[] values, int offset, double[] operand, int length) {
+            ArrayOps.get().multiply(values, offset, operand, length);
+        }
+
+        @Override
+        protected BinaryRaster with(RasterSource raster) {
+            return new RasterMultiply(raster);
+        }
+    }
+
+    private static final class RasterDivide extends BinaryRaster {
+        private RasterDivide(RasterSource raster) {
+            super(raster);
+        }
+
+        @Override
+        protected double apply(double a, double b) {
+            return a / b;
+        }
+
+        @Override
+        protected void apply(double[] values, int offset, double[] operand, int length) {
+            ArrayOps.get().divide(values, offset, operand, length);
+        }
+
+        @Override
+        protected BinaryRaster with(RasterSource raster) {
+            return new RasterDivide(raster);
+        }
+    }
+
+    private static final class RasterMod extends BinaryRaster {
+        private RasterMod(RasterSource raster) {
+            super(raster);
+        }
+
+        @Override
+        protected double apply(double a, double b) {
+            return a % b;
+        }
+
+        @Override
+        protected BinaryRaster with(RasterSource raster) {
+            return new RasterMod(raster);
+        }
+    }
+
+    private static final class RasterClamp implements Operator {
+        private final BinaryRaster lower;
+        private final BinaryRaster upper;
+
+        private RasterClamp(RasterSource min, RasterSource max) {
+            this.lower = new RasterMax(min);
+            this.upper = new RasterMin(max);
+        }
+
+        @Override
+        public double apply(int index, double d) {
+            return upper.apply(index, lower.apply(index, d));
+        }
+
+        @Override
+        public void apply(int index, double[] values, int offset, int length) {
+            lower.apply(index, values, offset, length);
+            upper.apply(index, values, offset, length);
+        }
+
+        @Override
+        public Operator region(int x, int y, int width, int height) {
+            return new RasterClamp(lower.raster.subRaster(x, y, width, height), upper.raster.subRaster(x, y, width, height));
+        }
+    }
+
+    private static final class RasterMin extends BinaryRaster {
+        private RasterMin(RasterSource raster) {
+            super(raster);
+        }
+
+        @Override
+        protected double apply(double a, double b) {
+            return Math.min(a, b);
+        }
+
+        @Override
+        protected void apply(double[] values, int offset, double[] operand, int length) {
+            ArrayOps.get().min(values, offset, operand, length);
+        }
+
+        @Override
+        protected BinaryRaster with(RasterSource raster) {
+            return new RasterMin(raster);
+        }
+    }
+
+    private static final class RasterMax extends BinaryRaster {
+        private RasterMax(RasterSource raster) {
+            super(raster);
+        }
+
+        @Override
+        protected double apply(double a, double b) {
+            return Math.max(a, b);
+        }
+
+        @Override
+        protected void apply(double[] values, int offset, double[] operand, int length) {
+            ArrayOps.get().max(values, offset, operand, length);
+        }
+
+        @Override
+        protected BinaryRaster with(RasterSource raster) {
+            return new RasterMax(raster);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package de.yoyosource.data.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+public final class Parallel {
+
+    private static volatile Executor executor = ForkJoinPool.commonPool();
+    private static volatile int parallelism = ForkJoinPool.getCommonPoolParallelism();
+    private static volatile long sequentialThreshold = 1 << 16;
+    private static final ThreadLocal<Pool> POOL = new ThreadLocal<>();
+
+    private Parallel() {
+    }
+
+    public interface RangeConsumer {
+        void accept(int from, int to);
+    }
+
+    public static void setExecutor(ForkJoinPool pool) {
+        setExecutor(pool, pool.getParallelism());
+    }
+
+    public static void setExecutor(Executor executor, int parallelism) {
+        Parallel.executor = executor;
+        Parallel.parallelism = Math.max(1, parallelism);
+    }
+
+    public static <T> T call(Executor executor, int parallelism, Supplier<T> supplier) {
+        return new Pool(executor, Math.max(1, parallelism)).call(supplier);
+    }
+
+    public static void setSequentialThreshold(long pixels) {
+        sequentialThreshold = Math.max(1, pixels);
+    }
+
+    public static int parallelism() {
+        Pool pool = POOL.get();
+        return pool != null ? pool.parallelism : parallelism;
+    }
+
+    public static void forRows(int width, int height, RangeConsumer rows) {
+        forEach(height, width, rows);
+    }
+
+    public static void forEach(int count, long costPerItem, RangeConsumer range) {
+        job(count, costPerItem, range).invoke();
+    }
+
+    public static Job job(int count, long costPerItem, RangeConsumer range) {
+        if (Profiler.isEnabled()) {
+            range = Profiler.attach(range);
+        }
+        range = BufferArena.attach(range);
+        Pool pool = POOL.get();
+        Executor executor = Parallel.executor;
+        int parallelism = Parallel.parallelism;
+        if (pool != null) {
+            range = pool.attach(range);
+            executor = pool.executor;
+            parallelism = pool.parallelism;
+        }
+        long cost = count * Math.max(1, costPerItem);
+        if (count < 2 || parallelism < 2 || cost <= sequentialThreshold) {
+            return new Job(count, 1, 1, executor, range);
+        }
+        int bands = (int) Math.min(Math.min(count, parallelism * 4L), cost / sequentialThreshold);
+        return new Job(count, bands, Math.min(bands, parallelism), executor, range);
+    }
+
+    private static final class Pool {
+        private final Executor executor;
+        private final int parallelism;
+
+        private Pool(Executor executor, int parallelism) {
+            this.executor = executor;
+            this.parallelism = parallelism;
+        }
+
+        private <T> T call(Supplier<T> supplier) {
+            Pool previous = POOL.get();
+            POOL.set(this);
+            try {
+                return supplier.get();
+            } finally {
+                if (previous == null) {
+                    POOL.remove();
+                } else {
+                    POOL.set(previous);
+                }
+            }
+        }
+
+        private RangeConsumer attach(RangeConsumer range) {
+            return (from, to) -> call(() -> {
+                range.accept(from, to);
+                return null;
+            });
+        }
+    }
+
+    public static final class Job {
+        private final int count;
+        private final int bands;
+        private final int helpers;
+        private final Executor executor;
+        private final RangeConsumer range;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch done;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Job(int count, int bands, int helpers, Executor executor, RangeConsumer range) {
+            this.count = count;
+            this.bands = bands;
+            this.helpers = helpers;
+            this.executor = executor;
+            this.range = range;
+            this.done = new CountDownLatch(bands);
+        }
+
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        public void invoke() {
+            if (started.compareAndSet(false, true)) {
+                for (int i = 1; i < helpers; i++) {
+                    executor.execute(this::work);
+                }
+            }
+            work();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+
+            Throwable t = failure.get();
+            if (t instanceof RuntimeException) throw (RuntimeException) t;
+            if (t instanceof Error) throw (Error) t;
+            if (t != null) throw new IllegalStateException(t);
+        }
+
+        private void work() {
+            int band;
+            while ((band = next.getAndIncrement()) < bands) {
+                try {
+                    range.accept((int) ((long) band * count / bands), (int) ((long) (band + 1) * count / bands));
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+    }
+}
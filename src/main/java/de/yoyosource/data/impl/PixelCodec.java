@@ -0,0 +1,168 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.RasterSource;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+public final class PixelCodec {
+
+    public static final int RED = 0;
+    public static final int GREEN = 1;
+    public static final int BLUE = 2;
+    public static final int ALPHA = 3;
+
+    private PixelCodec() {
+    }
+
+    public static double[] unpack(BufferedImage image, byte[][] channels) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] bounds = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE, 0, 0, 0, 0};
+        Parallel.forRows(width, height, (from, to) -> {
+            int[] rgb = new int[width];
+            int[] local = {255, 255, 255, 255, 0, 0, 0, 0};
+            RowReader reader = reader(image);
+            for (int y = from; y < to; y++) {
+                reader.read(y, rgb);
+                int row = y * width;
+                for (int x = 0; x < width; x++) {
+                    int argb = rgb[x];
+                    int red = (argb >> 16) & 0xFF;
+                    int green = (argb >> 8) & 0xFF;
+                    int blue = argb & 0xFF;
+                    int alpha = (argb >>> 24);
+                    channels[RED][row + x] = (byte) red;
+                    channels[GREEN][row + x] = (byte) green;
+                    channels[BLUE][row + x] = (byte) blue;
+                    channels[ALPHA][row + x] = (byte) alpha;
+                    local[RED] = Math.min(local[RED], red);
+                    local[GREEN] = Math.min(local[GREEN], green);
+                    local[BLUE] = Math.min(local[BLUE], blue);
+                    local[ALPHA] = Math.min(local[ALPHA], alpha);
+                    local[4 + RED] = Math.max(local[4 + RED], red);
+                    local[4 + GREEN] = Math.max(local[4 + GREEN], green);
+                    local[4 + BLUE] = Math.max(local[4 + BLUE], blue);
+                    local[4 + ALPHA] = Math.max(local[4 + ALPHA], alpha);
+                }
+            }
+            synchronized (bounds) {
+                for (int i = 0; i < 4; i++) {
+                    bounds[i] = Math.min(bounds[i], local[i]);
+                    bounds[4 + i] = Math.max(bounds[4 + i], local[4 + i]);
+                }
+            }
+        });
+        if (width == 0 || height == 0) {
+            for (int i = 0; i < 4; i++) bounds[i] = 0;
+        }
+        return bounds;
+    }
+
+    public static BufferedImage pack(int width, int height, RasterSource red, RasterSource green, RasterSource blue, RasterSource alpha) {
+        int[] pixels = BufferArena.ints(width * height);
+        DirectColorModel model = (DirectColorModel) ColorModel.getRGBdefault();
+        WritableRaster target = Raster.createPackedRaster(BufferArena.adopt(new DataBufferInt(pixels, pixels.length), pixels), width, height, width, model.getMasks(), null);
+        BufferedImage image = new BufferedImage(model, target, false, null);
+        Parallel.forRows(width, height, (from, to) -> OperandCache.interleaved(() -> {
+            double[] r = new double[width];
+            double[] g = new double[width];
+            double[] b = new double[width];
+            double[] a = new double[width];
+            for (int y = from; y < to; y++) {
+                int row = y * width;
+                red.get(row, r, 0, width);
+                green.get(row, g, 0, width);
+                blue.get(row, b, 0, width);
+                alpha.get(row, a, 0, width);
+                for (int x = 0; x < width; x++) {
+                    pixels[row + x] = ((int) a[x] << 24) | ((int) r[x] << 16) | ((int) g[x] << 8) | (int) b[x];
+                }
+            }
+        }));
+        return image;
+    }
+
+    private interface RowReader {
+        void read(int y, int[] argb);
+    }
+
+    private static RowReader reader(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        int width = image.getWidth();
+        if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0) {
+            return generic(image);
+        }
+
+        boolean sRGB = image.getColorModel().getColorSpace().isCS_sRGB();
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_INT_RGB: {
+                int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+                int offset = raster.getDataBuffer().getOffset();
+                int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+                int opaque = image.getType() == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+                return (y, argb) -> {
+                    int row = offset + y * stride;
+                    for (int x = 0; x < width; x++) {
+                        argb[x] = data[row + x] | opaque;
+                    }
+                };
+            }
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+                if (!sRGB) return generic(image);
+                ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+                byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+                int offset = raster.getDataBuffer().getOffset();
+                int stride = sampleModel.getScanlineStride();
+                int pixelStride = sampleModel.getPixelStride();
+                int[] bands = sampleModel.getBandOffsets();
+                boolean hasAlpha = bands.length > 3;
+                return (y, argb) -> {
+                    int index = offset + y * stride;
+                    for (int x = 0; x < width; x++, index += pixelStride) {
+                        int alpha = hasAlpha ? data[index + bands[3]] & 0xFF : 0xFF;
+                        argb[x] = (alpha << 24)
+                                | ((data[index + bands[0]] & 0xFF) << 16)
+                                | ((data[index + bands[1]] & 0xFF) << 8)
+                                | (data[index + bands[2]] & 0xFF);
+                    }
+                };
+            }
+            case BufferedImage.TYPE_BYTE_GRAY: {
+                ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+                byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+                int offset = raster.getDataBuffer().getOffset() + sampleModel.getBandOffsets()[0];
+                int stride = sampleModel.getScanlineStride();
+                int pixelStride = sampleModel.getPixelStride();
+                int[] lookup = new int[256];
+                byte[] pixel = new byte[1];
+                for (int i = 0; i < lookup.length; i++) {
+                    pixel[0] = (byte) i;
+                    lookup[i] = image.getColorModel().getRGB(pixel);
+                }
+                return (y, argb) -> {
+                    int index = offset + y * stride;
+                    for (int x = 0; x < width; x++, index += pixelStride) {
+                        argb[x] = lookup[data[index] & 0xFF];
+                    }
+                };
+            }
+            default:
+                return generic(image);
+        }
+    }
+
+    private static RowReader generic(BufferedImage image) {
+        int width = image.getWidth();
+        return (y, argb) -> image.getRGB(0, y, width, 1, argb, 0, width);
+    }
+}
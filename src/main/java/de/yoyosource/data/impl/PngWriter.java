@@ -0,0 +1,279 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Image;
+import de.yoyosource.data.PngFilter;
+import de.yoyosource.data.RasterSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+public class PngWriter {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int SEGMENT_BYTES = 1 << 18;
+    private static final int ADLER_BASE = 65521;
+
+    private final int level;
+    private final PngFilter filter;
+
+    public PngWriter() {
+        this(Integer.getInteger("imageprocessor.png.level", 4), PngFilter.valueOf(System.getProperty("imageprocessor.png.filter", PngFilter.ADAPTIVE.name())));
+    }
+
+    public PngWriter(int level, PngFilter filter) {
+        if (level < 0 || level > 9) throw new IllegalArgumentException("Compression level must be between 0 and 9");
+        this.level = level;
+        this.filter = filter;
+    }
+
+    public int level() {
+        return level;
+    }
+
+    public PngFilter filter() {
+        return filter;
+    }
+
+    public void write(Image image, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(image, channel);
+        }
+    }
+
+    public void write(Image image, OutputStream stream) throws IOException {
+        write(image, Channels.newChannel(stream));
+    }
+
+    public void write(Image image, WritableByteChannel channel) throws IOException {
+        write(image.width(), image.height(), image.red(), image.green(), image.blue(), image.alpha(), channel);
+    }
+
+    public void write(int width, int height, RasterSource red, RasterSource green, RasterSource blue, RasterSource alpha, WritableByteChannel channel) throws IOException {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Cannot write an empty " + width + "x" + height + " image");
+        int stride = width * 4 + 1;
+        int rows = Math.max(1, Math.min(height, SEGMENT_BYTES / stride));
+        int segments = (height + rows - 1) / rows;
+        int window = Math.max(1, Parallel.parallelism() * 2);
+
+        write(channel, ByteBuffer.wrap(SIGNATURE));
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width).putInt(height).put((byte) 8).put((byte) 6).put((byte) 0).put((byte) 0).put((byte) 0);
+        chunk(channel, "IHDR", header.array(), 0, 13);
+        chunk(channel, "IDAT", zlibHeader(), 0, 2);
+
+        long adler = Profiler.time("encode png", (long) width * height, () -> deflate(width, height, rows, segments, Math.min(window, segments), red, green, blue, alpha, channel));
+        byte[] trailer = ByteBuffer.allocate(4).putInt((int) adler).array();
+        chunk(channel, "IDAT", trailer, 0, 4);
+        chunk(channel, "IEND", new byte[0], 0, 0);
+    }
+
+    private long deflate(int width, int height, int rows, int segments, int window, RasterSource red, RasterSource green, RasterSource blue, RasterSource alpha, WritableByteChannel channel) throws IOException {
+        long adler = 1;
+        Segment[] wave = new Segment[window];
+        for (int first = 0; first < segments; first += wave.length) {
+            int base = first;
+            int count = Math.min(wave.length, segments - first);
+            Parallel.forEach(count, (long) rows * width, (from, to) -> OperandCache.interleaved(() -> {
+                Deflater deflater = new Deflater(level, true);
+                try {
+                    for (int i = from; i < to; i++) {
+                        int segment = base + i;
+                        int y = segment * rows;
+                        wave[i] = encode(deflater, width, y, Math.min(height, y + rows) - y, segment == segments - 1, red, green, blue, alpha);
+                    }
+                } finally {
+                    deflater.end();
+                }
+            }));
+            for (int i = 0; i < count; i++) {
+                Segment segment = wave[i];
+                adler = combine(adler, segment.adler, segment.length);
+                chunk(channel, "IDAT", segment.data, 0, segment.size);
+                wave[i] = null;
+            }
+        }
+        return adler;
+    }
+
+    private Segment encode(Deflater deflater, int width, int y, int rows, boolean last, RasterSource red, RasterSource green, RasterSource blue, RasterSource alpha) {
+        int stride = width * 4 + 1;
+        byte[] raw = BufferArena.bytes(stride * rows);
+        try {
+            byte[] previous = new byte[width * 4];
+            byte[] current = new byte[width * 4];
+            byte[][] candidates = filter == PngFilter.ADAPTIVE ? new byte[5][width * 4] : null;
+            double[][] channels = new double[4][width];
+            if (y > 0) pixels(width, y - 1, red, green, blue, alpha, channels, previous);
+            for (int row = 0; row < rows; row++) {
+                pixels(width, y + row, red, green, blue, alpha, channels, current);
+                filter(current, previous, raw, row * stride, candidates);
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+
+            Adler32 checksum = new Adler32();
+            checksum.update(raw, 0, raw.length);
+            deflater.reset();
+            deflater.setInput(raw, 0, raw.length);
+            byte[] data = new byte[raw.length + raw.length / 8 + 64];
+            int size = 0;
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    if (size == data.length) data = Arrays.copyOf(data, data.length * 2);
+                    size += deflater.deflate(data, size, data.length - size);
+                }
+            } else {
+                do {
+                    if (size == data.length) data = Arrays.copyOf(data, data.length * 2);
+                    size += deflater.deflate(data, size, data.length - size, Deflater.SYNC_FLUSH);
+                } while (size == data.length);
+            }
+            return new Segment(data, size, checksum.getValue(), raw.length);
+        } finally {
+            BufferArena.release(raw);
+        }
+    }
+
+    private static void pixels(int width, int y, RasterSource red, RasterSource green, RasterSource blue, RasterSource alpha, double[][] channels, byte[] target) {
+        int row = y * width;
+        red.get(row, channels[0], 0, width);
+        green.get(row, channels[1], 0, width);
+        blue.get(row, channels[2], 0, width);
+        alpha.get(row, channels[3], 0, width);
+        for (int x = 0; x < width; x++) {
+            int argb = ((int) channels[3][x] << 24) | ((int) channels[0][x] << 16) | ((int) channels[1][x] << 8) | (int) channels[2][x];
+            target[4 * x] = (byte) (argb >>> 16);
+            target[4 * x + 1] = (byte) (argb >>> 8);
+            target[4 * x + 2] = (byte) argb;
+            target[4 * x + 3] = (byte) (argb >>> 24);
+        }
+    }
+
+    private void filter(byte[] current, byte[] previous, byte[] raw, int offset, byte[][] candidates) {
+        if (candidates == null) {
+            raw[offset] = (byte) filter.ordinal();
+            apply(filter.ordinal(), current, previous, raw, offset + 1);
+            return;
+        }
+        int best = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int type = 0; type < candidates.length; type++) {
+            apply(type, current, previous, candidates[type], 0);
+            long sum = 0;
+            for (byte value : candidates[type]) {
+                sum += Math.abs(value);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = type;
+            }
+        }
+        raw[offset] = (byte) best;
+        System.arraycopy(candidates[best], 0, raw, offset + 1, current.length);
+    }
+
+    private static void apply(int type, byte[] current, byte[] previous, byte[] target, int offset) {
+        int length = current.length;
+        switch (type) {
+            case 0:
+                System.arraycopy(current, 0, target, offset, length);
+                break;
+            case 1:
+                for (int i = 0; i < length; i++) {
+                    target[offset + i] = (byte) (current[i] - (i < 4 ? 0 : current[i - 4]));
+                }
+                break;
+            case 2:
+                for (int i = 0; i < length; i++) {
+                    target[offset + i] = (byte) (current[i] - previous[i]);
+                }
+                break;
+            case 3:
+                for (int i = 0; i < length; i++) {
+                    int left = i < 4 ? 0 : current[i - 4] & 0xFF;
+                    target[offset + i] = (byte) (current[i] - ((left + (previous[i] & 0xFF)) >>> 1));
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    int left = i < 4 ? 0 : current[i - 4] & 0xFF;
+                    int up = previous[i] & 0xFF;
+                    int upLeft = i < 4 ? 0 : previous[i - 4] & 0xFF;
+                    int estimate = left + up - upLeft;
+                    int distanceLeft = Math.abs(estimate - left);
+                    int distanceUp = Math.abs(estimate - up);
+                    int distanceUpLeft = Math.abs(estimate - upLeft);
+                    int predictor = distanceLeft <= distanceUp && distanceLeft <= distanceUpLeft ? left : distanceUp <= distanceUpLeft ? up : upLeft;
+                    target[offset + i] = (byte) (current[i] - predictor);
+                }
+                break;
+        }
+    }
+
+    private byte[] zlibHeader() {
+        int compressionLevel = level < 2 ? 0 : level < 6 ? 1 : level == 6 ? 2 : 3;
+        int header = 0x7800 | compressionLevel << 6;
+        header += (31 - header % 31) % 31;
+        return new byte[]{(byte) (header >>> 8), (byte) header};
+    }
+
+    static long combine(long first, long second, long length) {
+        long remainder = length % ADLER_BASE;
+        long sum1 = first & 0xFFFF;
+        long sum2 = remainder * sum1 % ADLER_BASE;
+        sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += (first >>> 16 & 0xFFFF) + (second >>> 16 & 0xFFFF) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= ADLER_BASE << 1) sum2 -= ADLER_BASE << 1;
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return sum1 | sum2 << 16;
+    }
+
+    private static void chunk(WritableByteChannel channel, String type, byte[] data, int offset, int length) throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(data, offset, length);
+        ByteBuffer head = ByteBuffer.allocate(8).putInt(length).put(name);
+        head.flip();
+        write(channel, head);
+        write(channel, ByteBuffer.wrap(data, offset, length));
+        ByteBuffer tail = ByteBuffer.allocate(4).putInt((int) crc.getValue());
+        tail.flip();
+        write(channel, tail);
+    }
+
+    private static void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class Segment {
+        private final byte[] data;
+        private final int size;
+        private final long adler;
+        private final long length;
+
+        private Segment(byte[] data, int size, long adler, long length) {
+            this.data = data;
+            this.size = size;
+            this.adler = adler;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package de.yoyosource.data.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("de.yoyosource.RasterOperation")
+@Label("Raster Operation")
+@Category("ImageProcessor")
+@StackTrace(false)
+public class ProfileEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Pixels")
+    public long pixels;
+
+    @Label("Allocated")
+    @DataAmount
+    public long allocated;
+}
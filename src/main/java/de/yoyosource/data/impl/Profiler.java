@@ -0,0 +1,204 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.ProfileEntry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Profiler {
+
+    private static volatile boolean enabled = Boolean.getBoolean("imageprocessor.profile");
+    private static volatile Node root = new Node("root", null);
+    private static final ThreadLocal<Node> CURRENT = new ThreadLocal<>();
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private Profiler() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static void reset() {
+        root = new Node("root", null);
+    }
+
+    public static ProfileEntry report() {
+        return root.snapshot();
+    }
+
+    public static Scope scope(String name, long pixels) {
+        if (!enabled) return null;
+        return new Scope(node().child(name), pixels, true);
+    }
+
+    public static <T, E extends Exception> T time(String name, long pixels, Task<T, E> task) throws E {
+        Scope scope = scope(name, pixels);
+        try {
+            return task.run();
+        } finally {
+            if (scope != null) scope.close();
+        }
+    }
+
+    public static <E extends Exception> void run(String name, long pixels, Action<E> action) throws E {
+        Scope scope = scope(name, pixels);
+        try {
+            action.run();
+        } finally {
+            if (scope != null) scope.close();
+        }
+    }
+
+    static void operator(Operator operator, long pixels, Runnable action) {
+        Scope scope = new Scope(node().child(operator.name()), pixels, false);
+        try {
+            action.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    static Parallel.RangeConsumer attach(Parallel.RangeConsumer range) {
+        Node node = node();
+        Thread owner = Thread.currentThread();
+        return (from, to) -> {
+            if (Thread.currentThread() == owner) {
+                range.accept(from, to);
+                return;
+            }
+            Node previous = CURRENT.get();
+            CURRENT.set(node);
+            long allocated = allocated();
+            try {
+                range.accept(from, to);
+            } finally {
+                node.allocated.add(allocated() - allocated);
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    private static Node node() {
+        Node node = CURRENT.get();
+        return node != null ? node : root;
+    }
+
+    private static long allocated() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            ((com.sun.management.ThreadMXBean) threads).setThreadAllocatedMemoryEnabled(true);
+            return (com.sun.management.ThreadMXBean) threads;
+        }
+        return null;
+    }
+
+    public interface Task<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    public interface Action<E extends Exception> {
+        void run() throws E;
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Node node;
+        private final Node previous;
+        private final long pixels;
+        private final long allocated;
+        private final long start;
+        private final ProfileEvent event;
+
+        private Scope(Node node, long pixels, boolean event) {
+            this.node = node;
+            this.previous = CURRENT.get();
+            this.pixels = pixels;
+            this.event = event ? new ProfileEvent() : null;
+            CURRENT.set(node);
+            if (this.event != null) this.event.begin();
+            this.allocated = allocated();
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - start;
+            long allocated = allocated() - this.allocated;
+            node.calls.increment();
+            node.nanos.add(nanos);
+            node.pixels.add(pixels);
+            node.allocated.add(allocated);
+            CURRENT.set(previous);
+            if (event != null && event.shouldCommit()) {
+                event.operation = node.name;
+                event.path = node.path();
+                event.pixels = pixels;
+                event.allocated = allocated;
+                event.commit();
+            }
+        }
+    }
+
+    private static final class Node {
+        private final String name;
+        private final Node parent;
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder pixels = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+
+        private Node(String name, Node parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        private Node child(String name) {
+            Node child = children.get(name);
+            if (child != null) return child;
+            return children.computeIfAbsent(name, key -> new Node(key, this));
+        }
+
+        private String path() {
+            return parent == null || parent.parent == null ? name : parent.path() + ";" + name;
+        }
+
+        private ProfileEntry snapshot() {
+            List<ProfileEntry> entries = new ArrayList<>();
+            for (Node child : children.values()) {
+                entries.add(child.snapshot());
+            }
+            entries.sort(Comparator.comparingLong(ProfileEntry::nanos).reversed());
+            if (parent != null) {
+                return new ProfileEntry(name, calls.sum(), nanos.sum(), pixels.sum(), allocated.sum(), entries);
+            }
+            long nanos = 0;
+            long pixels = 0;
+            long allocated = 0;
+            for (ProfileEntry entry : entries) {
+                nanos += entry.nanos();
+                pixels += entry.pixels();
+                allocated += entry.allocatedBytes();
+            }
+            return new ProfileEntry(name, 1, nanos, pixels, allocated, entries);
+        }
+    }
+}
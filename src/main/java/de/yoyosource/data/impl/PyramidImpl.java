@@ -0,0 +1,287 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Pyramid;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.RasterSource;
+import de.yoyosource.data.RasterStatistics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class PyramidImpl implements Pyramid {
+
+    private static final Map<Long, double[]> LEVEL_RADII = new ConcurrentHashMap<>();
+    private static volatile double tolerance = 0.05;
+
+    private final Raster source;
+    private final Raster[] levels;
+
+    public PyramidImpl(Raster source) {
+        this.source = source;
+        int levels = 1;
+        for (int width = source.width(), height = source.height(); width > 1 || height > 1; levels++) {
+            width = (width + 1) / 2;
+            height = (height + 1) / 2;
+        }
+        this.levels = new Raster[levels];
+        this.levels[0] = source;
+    }
+
+    public static double tolerance() {
+        return tolerance;
+    }
+
+    public static void setTolerance(double tolerance) {
+        if (!(tolerance >= 0)) throw new IllegalArgumentException("tolerance must not be negative");
+        PyramidImpl.tolerance = tolerance;
+    }
+
+    @Override
+    public int levels() {
+        return levels.length;
+    }
+
+    @Override
+    public Raster level(int level) {
+        if (level < 0 || level >= levels.length) {
+            throw new IllegalArgumentException("level " + level + " outside of 0.." + (levels.length - 1));
+        }
+        synchronized (levels) {
+            for (int i = 1; i <= level; i++) {
+                if (levels[i] == null) levels[i] = downsample(levels[i - 1]);
+            }
+            return levels[level];
+        }
+    }
+
+    @Override
+    public RasterStatistics statistics(int level) {
+        return level(level).statistics();
+    }
+
+    @Override
+    public int level(int radius, double tolerance) {
+        int best = 0;
+        for (int level = 1; level < levels.length && (1 << level) <= 2 * radius + 1; level++) {
+            if (levelRadius(radius, level)[1] <= tolerance) best = level;
+        }
+        return best;
+    }
+
+    @Override
+    public Raster blur(int radius, double tolerance) {
+        int level = level(radius, tolerance);
+        if (level == 0) return source.gaussianBlur(radius, BlurMode.BOX);
+        return new RasterImpl(new Upsampled(level(level), (int) levelRadius(radius, level)[0], 1 << level, source.width(), source.height()));
+    }
+
+    private static Raster downsample(RasterSource source) {
+        int width = source.width();
+        int height = source.height();
+        int targetWidth = (width + 1) / 2;
+        int targetHeight = (height + 1) / 2;
+        DoubleStorage target = new DoubleStorage(targetWidth, targetHeight);
+        double[] data = target.data();
+        Parallel.forRows(width * 2, targetHeight, (from, to) -> {
+            double[] top = new double[width];
+            double[] bottom = new double[width];
+            for (int y = from; y < to; y++) {
+                boolean pair = 2 * y + 1 < height;
+                source.get(2 * y * width, top, 0, width);
+                if (pair) source.get((2 * y + 1) * width, bottom, 0, width);
+                for (int x = 0; x < targetWidth; x++) {
+                    int left = 2 * x;
+                    int right = Math.min(left + 1, width - 1);
+                    double sum = top[left] + (right != left ? top[right] : 0);
+                    int count = right != left ? 2 : 1;
+                    if (pair) {
+                        sum += bottom[left] + (right != left ? bottom[right] : 0);
+                        count *= 2;
+                    }
+                    data[y * targetWidth + x] = sum / count;
+                }
+            }
+        });
+        return new RasterImpl(target);
+    }
+
+    public static double error(int radius, int level) {
+        return level == 0 ? 0 : levelRadius(radius, level)[1];
+    }
+
+    private static double[] levelRadius(int radius, int level) {
+        return LEVEL_RADII.computeIfAbsent(((long) radius << 8) | level, key -> computeLevelRadius(radius, level));
+    }
+
+    private static double[] computeLevelRadius(int radius, int level) {
+        int scale = 1 << level;
+        double width = 2 * radius + 1;
+        double ideal = (Math.sqrt(Math.max(1, (width * width - 1 - (scale * scale - 1) - 2.0 * scale * scale) / (scale * scale) + 1)) - 1) / 2;
+        int lower = Math.max(0, (int) Math.floor(ideal));
+        int upper = lower + 1;
+        double lowerError = stepError(radius, level, lower);
+        double upperError = stepError(radius, level, upper);
+        return lowerError <= upperError ? new double[]{lower, lowerError} : new double[]{upper, upperError};
+    }
+
+    private static double stepError(int radius, int level, int levelRadius) {
+        int scale = 1 << level;
+        int length = 4 * scale * ((2 * radius + 1 + 4 * scale) / scale + 1);
+        double error = 0;
+        for (int phase = 0; phase < scale; phase++) {
+            int step = length / 2 + phase;
+            double[] signal = new double[length];
+            for (int x = step; x < length; x++) signal[x] = 1;
+            double[] exact = box(signal, radius);
+            double[] coarse = signal;
+            for (int i = 0; i < level; i++) coarse = halve(coarse);
+            coarse = box(coarse, levelRadius);
+            for (int x = length / 4; x < 3 * length / 4; x++) {
+                error = Math.max(error, Math.abs(sample(coarse, x, scale) - exact[x]));
+            }
+        }
+        return error;
+    }
+
+    private static double[] halve(double[] values) {
+        double[] result = new double[(values.length + 1) / 2];
+        for (int i = 0; i < result.length; i++) {
+            int right = Math.min(2 * i + 1, values.length - 1);
+            result[i] = right == 2 * i ? values[2 * i] : (values[2 * i] + values[right]) / 2;
+        }
+        return result;
+    }
+
+    private static double[] box(double[] values, int radius) {
+        double[] prefix = new double[values.length + 1];
+        for (int x = 0; x < values.length; x++) {
+            prefix[x + 1] = prefix[x] + values[x];
+        }
+        double[] result = new double[values.length];
+        for (int x = 0; x < values.length; x++) {
+            int from = Math.max(0, x - radius);
+            int to = Math.min(values.length - 1, x + radius);
+            result[x] = (prefix[to + 1] - prefix[from]) / (to - from + 1);
+        }
+        return result;
+    }
+
+    private static double sample(double[] values, int x, int scale) {
+        double u = (x + 0.5) / scale - 0.5;
+        int left = (int) Math.floor(u);
+        double fraction = u - left;
+        if (left < 0) {
+            left = 0;
+            fraction = 0;
+        }
+        if (left >= values.length - 1) {
+            left = values.length - 1;
+            fraction = 0;
+        }
+        return fraction == 0 ? values[left] : values[left] + (values[left + 1] - values[left]) * fraction;
+    }
+
+    private static final class Upsampled implements RasterSource {
+        private final int width;
+        private final int height;
+        private final int levelWidth;
+        private final int[] columns;
+        private final double[] columnFractions;
+        private final int[] rows;
+        private final double[] rowFractions;
+        private Raster level;
+        private final int radius;
+        private volatile double[] data;
+
+        private Upsampled(Raster level, int radius, int scale, int width, int height) {
+            this.level = level;
+            this.radius = radius;
+            this.width = width;
+            this.height = height;
+            this.levelWidth = level.width();
+            this.columns = new int[width];
+            this.columnFractions = new double[width];
+            this.rows = new int[height];
+            this.rowFractions = new double[height];
+            coordinates(columns, columnFractions, scale, level.width());
+            coordinates(rows, rowFractions, scale, level.height());
+        }
+
+        private static void coordinates(int[] indexes, double[] fractions, int scale, int size) {
+            for (int i = 0; i < indexes.length; i++) {
+                double u = (i + 0.5) / scale - 0.5;
+                int index = (int) Math.floor(u);
+                double fraction = u - index;
+                if (index < 0) {
+                    index = 0;
+                    fraction = 0;
+                }
+                if (index >= size - 1) {
+                    index = size - 1;
+                    fraction = 0;
+                }
+                indexes[i] = index;
+                fractions[i] = fraction;
+            }
+        }
+
+        @Override
+        public int width() {
+            return width;
+        }
+
+        @Override
+        public int height() {
+            return height;
+        }
+
+        @Override
+        public double get(int index) {
+            return sample(data(), index % width, index / width);
+        }
+
+        @Override
+        public void get(int index, double[] values, int offset, int length) {
+            double[] data = data();
+            int x = index % width;
+            int y = index / width;
+            for (int i = 0; i < length; i++) {
+                values[offset + i] = sample(data, x, y);
+                if (++x == width) {
+                    x = 0;
+                    y++;
+                }
+            }
+        }
+
+        private double sample(double[] data, int x, int y) {
+            int column = columns[x];
+            int row = rows[y] * levelWidth;
+            double fx = columnFractions[x];
+            double fy = rowFractions[y];
+            double top = data[row + column];
+            if (fx != 0) top += (data[row + column + 1] - top) * fx;
+            if (fy == 0) return top;
+            double bottom = data[row + levelWidth + column];
+            if (fx != 0) bottom += (data[row + levelWidth + column + 1] - bottom) * fx;
+            return top + (bottom - top) * fy;
+        }
+
+        private double[] data() {
+            double[] data = this.data;
+            if (data == null) {
+                synchronized (this) {
+                    data = this.data;
+                    if (data == null) {
+                        data = Blur.blur(level, radius, BlurMode.BOX);
+                        BufferArena.adopt(this, data);
+                        this.data = data;
+                        this.level = null;
+                    }
+                }
+            }
+            return data;
+        }
+    }
+}
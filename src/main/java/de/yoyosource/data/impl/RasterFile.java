@@ -0,0 +1,111 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.RasterStorage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+public final class RasterFile {
+
+    public static final int MAGIC = 0x49505253;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+
+    private RasterFile() {
+    }
+
+    public static void write(Raster raster, Precision precision, File file) throws IOException {
+        int width = raster.width();
+        int height = raster.height();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double[] values = new double[width];
+            RasterStorage row = RasterStorage.allocate(precision, width, 1);
+            ByteBuffer buffer = ByteBuffer.allocate(width * precision.bytes()).order(ByteOrder.LITTLE_ENDIAN);
+            long position = HEADER_SIZE;
+            for (int y = 0; y < height; y++) {
+                raster.get(y * width, values, 0, width);
+                row.set(0, values, 0, width);
+                buffer.clear();
+                for (int x = 0; x < width; x++) {
+                    double value = row.get(x);
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                switch (precision) {
+                    case BYTE:
+                        buffer.put(((ByteStorage) row).data());
+                        break;
+                    case SHORT:
+                        buffer.asShortBuffer().put(((ShortStorage) row).data());
+                        break;
+                    case FLOAT:
+                        buffer.asFloatBuffer().put(((FloatStorage) row).data());
+                        break;
+                    case DOUBLE:
+                        buffer.asDoubleBuffer().put(((DoubleStorage) row).data());
+                        break;
+                }
+                buffer.position(0).limit(buffer.capacity());
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(precision.ordinal()).putInt(0);
+            header.putDouble(min).putDouble(max);
+            header.clear();
+            channel.write(header, 0);
+        }
+    }
+
+    public static Raster open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) throw new IOException("Truncated raster header in " + file);
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException("Not a raster file: " + file);
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported raster file version " + version + " in " + file);
+            int width = header.getInt();
+            int height = header.getInt();
+            if (width < 0 || height < 0) throw new IOException("Invalid raster size " + width + "x" + height + " in " + file);
+            int ordinal = header.getInt();
+            if (ordinal < 0 || ordinal >= Precision.values().length) throw new IOException("Unknown raster precision " + ordinal + " in " + file);
+            Precision precision = Precision.values()[ordinal];
+            header.getInt();
+            double min = header.getDouble();
+            double max = header.getDouble();
+
+            long size = (long) width * height * precision.bytes();
+            if (channel.size() < HEADER_SIZE + size) throw new IOException("Truncated raster data in " + file);
+            MappedRaster source = new MappedRaster(channel, width, height, precision);
+            if (width == 0 || height == 0) return new RasterImpl(source);
+            return new RasterImpl(source, min, max);
+        }
+    }
+
+    public static Raster cached(File file, Precision precision, Supplier<Raster> raster) throws IOException {
+        if (file.isFile()) {
+            return open(file);
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        write(raster.get(), precision, temp);
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Cannot move " + temp + " to " + file);
+        }
+        return open(file);
+    }
+}
@@ -1,36 +1,55 @@
 package de.yoyosource.data.impl;
 
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Boundary;
+import de.yoyosource.data.Histogram;
+import de.yoyosource.data.Mask;
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.Pyramid;
 import de.yoyosource.data.Raster;
 import de.yoyosource.data.RasterSource;
+import de.yoyosource.data.RasterStatistics;
+import de.yoyosource.data.RasterStorage;
+import de.yoyosource.data.Stencil;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.OptionalDouble;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.BiFunction;
+import java.util.function.DoubleUnaryOperator;
 
 public class RasterImpl implements Raster {
 
     private final RasterSource raster;
-    private List<BiFunction<Integer, Double, Double>> operators = new ArrayList<>();
+    private final List<Operator> operators;
+    private final Kernel kernel;
 
-    private OptionalDouble min = OptionalDouble.empty();
-    private OptionalDouble max = OptionalDouble.empty();
+    private volatile OptionalDouble min;
+    private volatile OptionalDouble max;
+    private volatile RasterStatistics statistics;
+    private volatile Histogram histogram;
+    private volatile Pyramid pyramid;
 
     public RasterImpl(RasterSource rasterSource) {
-        this.raster = rasterSource;
+        this(rasterSource, OptionalDouble.empty(), OptionalDouble.empty(), null, null);
     }
 
     public RasterImpl(RasterSource rasterSource, double min, double max) {
-        this.raster = rasterSource;
-        this.min = OptionalDouble.of(min);
-        this.max = OptionalDouble.of(max);
+        this(rasterSource, OptionalDouble.of(min), OptionalDouble.of(max), null, null);
     }
 
-    private RasterImpl(RasterSource rasterSource, OptionalDouble min, OptionalDouble max) {
+    private RasterImpl(RasterSource rasterSource, OptionalDouble min, OptionalDouble max, RasterStatistics statistics, Histogram histogram) {
+        this(rasterSource, Collections.emptyList(), min, max, statistics, histogram);
+    }
+
+    private RasterImpl(RasterSource rasterSource, List<Operator> operators, OptionalDouble min, OptionalDouble max, RasterStatistics statistics, Histogram histogram) {
         this.raster = rasterSource;
+        this.operators = operators;
+        this.kernel = Kernel.compile(operators);
         this.min = min;
         this.max = max;
+        this.statistics = statistics;
+        this.histogram = histogram;
     }
 
     @Override
@@ -50,292 +69,321 @@ public class RasterImpl implements Raster {
 
     @Override
     public Raster eval() {
-        if (operators.isEmpty()) {
-            return new RasterImpl(raster, min, max);
-        }
+        return eval(Precision.DOUBLE);
+    }
 
-        int width = width();
-        int height = height();
-        AtomicReference<double[]> data = new AtomicReference<>(null);
-        return new RasterImpl(new RasterSource() {
-            @Override
-            public int width() {
-                return width;
+    @Override
+    public Raster eval(Precision precision) {
+        if (isMasked()) {
+            return new RasterImpl(((MaskedSource) raster).evaluate(precision), operators, min, max, statistics, histogram);
+        }
+        if (operators.isEmpty() && !(raster instanceof StencilSource)) {
+            boolean stored = raster instanceof RasterStorage;
+            if (stored ? ((RasterStorage) raster).precision().bytes() <= precision.bytes() : precision == Precision.DOUBLE) {
+                return this;
             }
+        }
+        return new RasterImpl(new EvaluatedSource(raster, kernel, precision), min, max, precision == Precision.DOUBLE ? statistics : null, precision == Precision.DOUBLE ? histogram : null);
+    }
 
-            @Override
-            public int height() {
-                return height;
-            }
+    public RasterStorage storage() {
+        return operators.isEmpty() && raster instanceof RasterStorage ? (RasterStorage) raster : null;
+    }
 
-            @Override
-            public double get(int index) {
-                if (data.get() == null) {
-                    double[] data2 = new double[width * height];
-                    for (int i = 0; i < data2.length; i++) {
-                        data2[i] = RasterImpl.this.get(i);
-                    }
-                    data.set(data2);
-                }
-                return data.get()[index];
-            }
-        }, min, max);
+    public void discard() {
+        if (operators.isEmpty() && raster instanceof EvaluatedSource) ((EvaluatedSource) raster).discard();
+    }
+
+    public boolean isMaterialized() {
+        return operators.isEmpty() && (raster instanceof RasterStorage || raster instanceof EvaluatedSource || raster instanceof MappedRaster || raster instanceof MaskedSource && ((MaskedSource) raster).isMaterialized());
+    }
+
+    public boolean isMasked() {
+        return operators.isEmpty() && raster instanceof MaskedSource;
     }
 
     @Override
     public Raster add(double value) {
-        operators.add((i, d) -> d + value);
-        if (min.isPresent()) min = OptionalDouble.of(min.getAsDouble() + value);
-        if (max.isPresent()) max = OptionalDouble.of(max.getAsDouble() + value);
-        return this;
+        return with(Operators.add(value), map(min, d -> d + value), map(max, d -> d + value), 1, d -> d + value);
     }
 
     @Override
     public Raster subtract(double value) {
-        operators.add((i, d) -> d - value);
-        if (min.isPresent()) min = OptionalDouble.of(min.getAsDouble() - value);
-        if (max.isPresent()) max = OptionalDouble.of(max.getAsDouble() - value);
-        return this;
+        return with(Operators.subtract(value), map(min, d -> d - value), map(max, d -> d - value), 1, d -> d - value);
     }
 
     @Override
     public Raster multiply(double value) {
-        operators.add((i, d) -> d * value);
-        if (min.isPresent()) min = OptionalDouble.of(min.getAsDouble() * value);
-        if (max.isPresent()) max = OptionalDouble.of(max.getAsDouble() * value);
+        OptionalDouble min = map(this.min, d -> d * value);
+        OptionalDouble max = map(this.max, d -> d * value);
         if (value < 0) {
-            OptionalDouble temp = min;
-            min = max;
-            max = temp;
+            return with(Operators.multiply(value), max, min, value, d -> d * value);
         }
-        return this;
+        return with(Operators.multiply(value), min, max, value, d -> d * value);
     }
 
     @Override
     public Raster divide(double value) {
-        operators.add((i, d) -> d / value);
-        if (min.isPresent()) min = OptionalDouble.of(min.getAsDouble() / value);
-        if (max.isPresent()) max = OptionalDouble.of(max.getAsDouble() / value);
+        OptionalDouble min = map(this.min, d -> d / value);
+        OptionalDouble max = map(this.max, d -> d / value);
         if (value < 0) {
-            OptionalDouble temp = min;
-            min = max;
-            max = temp;
+            return with(Operators.divide(value), max, min, 1 / value, d -> d / value);
         }
-        return this;
+        return with(Operators.divide(value), min, max, 1 / value, d -> d / value);
     }
 
     @Override
     public Raster mod(double value) {
-        operators.add((i, d) -> d % value);
-        min = OptionalDouble.empty();
-        max = OptionalDouble.empty();
-        return this;
+        return with(Operators.mod(value), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster clamp(double min, double max) {
-        operators.add((i, d) -> Math.min(Math.max(d, min), max));
-        if (this.min.isPresent()) this.min = OptionalDouble.of(Math.min(Math.max(this.min.getAsDouble(), min), max));
-        if (this.max.isPresent()) this.max = OptionalDouble.of(Math.min(Math.max(this.max.getAsDouble(), min), max));
-        return this;
+        return with(Operators.clamp(min, max), map(this.min, d -> Math.min(Math.max(d, min), max)), map(this.max, d -> Math.min(Math.max(d, min), max)));
     }
 
     @Override
     public Raster min(double value) {
-        operators.add((i, d) -> Math.min(d, value));
-        if (min.isPresent()) min = OptionalDouble.of(Math.min(min.getAsDouble(), value));
-        if (max.isPresent()) max = OptionalDouble.of(Math.min(max.getAsDouble(), value));
-        return this;
+        return with(Operators.min(value), map(min, d -> Math.min(d, value)), map(max, d -> Math.min(d, value)));
     }
 
     @Override
     public Raster min(double value, double cutOffValue) {
-        operators.add((i, d) -> d < value ? cutOffValue : d);
-        if (min.isPresent()) min = OptionalDouble.of(min.getAsDouble() < value ? cutOffValue : min.getAsDouble());
-        if (max.isPresent()) max = OptionalDouble.of(max.getAsDouble() < value ? cutOffValue : max.getAsDouble());
-        return this;
+        return with(Operators.min(value, cutOffValue), map(min, d -> d < value ? cutOffValue : d), map(max, d -> d < value ? cutOffValue : d));
     }
 
     @Override
     public Raster max(double value) {
-        operators.add((i, d) -> Math.max(d, value));
-        if (min.isPresent()) min = OptionalDouble.of(Math.max(min.getAsDouble(), value));
-        if (max.isPresent()) max = OptionalDouble.of(Math.max(max.getAsDouble(), value));
-        return this;
+        return with(Operators.max(value), map(min, d -> Math.max(d, value)), map(max, d -> Math.max(d, value)));
     }
 
     @Override
     public Raster max(double value, double cutOffValue) {
-        operators.add((i, d) -> d > value ? cutOffValue : d);
-        if (min.isPresent()) min = OptionalDouble.of(min.getAsDouble() > value ? cutOffValue : min.getAsDouble());
-        if (max.isPresent()) max = OptionalDouble.of(max.getAsDouble() > value ? cutOffValue : max.getAsDouble());
-        return this;
+        return with(Operators.max(value, cutOffValue), map(min, d -> d > value ? cutOffValue : d), map(max, d -> d > value ? cutOffValue : d));
     }
 
     @Override
     public Raster add(Raster raster) {
-        operators.add((i, d) -> d + raster.get(i));
-        min = OptionalDouble.empty();
-        max = OptionalDouble.empty();
-        return this;
+        return with(Operators.add(raster), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster subtract(Raster raster) {
-        operators.add((i, d) -> d - raster.get(i));
-        min = OptionalDouble.empty();
-        max = OptionalDouble.empty();
-        return this;
+        return with(Operators.subtract(raster), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster multiply(Raster raster) {
-        operators.add((i, d) -> d * raster.get(i));
-        min = OptionalDouble.empty();
-        max = OptionalDouble.empty();
-        return this;
+        return with(Operators.multiply(raster), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster divide(Raster raster) {
-        operators.add((i, d) -> d / raster.get(i));
-        min = OptionalDouble.empty();
-        max = OptionalDouble.empty();
-        return this;
+        return with(Operators.divide(raster), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster mod(Raster raster) {
-        operators.add((i, d) -> d % raster.get(i));
-        min = OptionalDouble.empty();
-        max = OptionalDouble.empty();
-        return this;
+        return with(Operators.mod(raster), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster clamp(Raster min, Raster max) {
-        operators.add((i, d) -> Math.min(Math.max(d, min.get(i)), max.get(i)));
-        this.min = OptionalDouble.empty();
-        this.max = OptionalDouble.empty();
-        return this;
+        return with(Operators.clamp(min, max), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster min(Raster raster) {
-        operators.add((i, d) -> Math.min(d, raster.get(i)));
-        min = OptionalDouble.empty();
-        max = OptionalDouble.empty();
-        return this;
+        return with(Operators.min(raster), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster max(Raster raster) {
-        operators.add((i, d) -> Math.max(d, raster.get(i)));
-        min = OptionalDouble.empty();
-        max = OptionalDouble.empty();
-        return this;
+        return with(Operators.max(raster), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster normalize() {
-        double max = max();
-        operators.add((i, d) -> d / max);
-        if (this.min.isPresent()) this.min = OptionalDouble.of(this.min.getAsDouble() / max);
-        if (this.max.isPresent()) this.max = OptionalDouble.of(this.max.getAsDouble() / max);
-        return this;
+        double max = Profiler.time("normalize", 0, this::max);
+        return with(Operators.divide(max), map(this.min, d -> d / max), map(this.max, d -> d / max), 1 / max, d -> d / max);
+    }
+
+    @Override
+    public Raster normalize(double percentile) {
+        double value = Profiler.time("normalize", 0, () -> percentile(percentile));
+        if (value == 0) return this;
+        return divide(value).min(1);
+    }
+
+    @Override
+    public Raster equalize() {
+        Histogram histogram = Profiler.time("equalize", 0, this::histogram);
+        return with(Operators.equalize(histogram), OptionalDouble.empty(), OptionalDouble.empty());
     }
 
     @Override
     public Raster gaussianBlur(int radius) {
+        return gaussianBlur(radius, BlurMode.BOX);
+    }
+
+    @Override
+    public Raster gaussianBlur(int radius, BlurMode mode) {
+        if (mode == BlurMode.APPROXIMATE) {
+            return pyramid().blur(radius, PyramidImpl.tolerance());
+        }
         if (operators.isEmpty()) {
-            operators.add((i, d ) -> {
-                int x = i % width();
-                int y = i / width();
-                return raster.subRaster(x - radius, y - radius, radius * 2 + 1, radius * 2 + 1).average();
-            });
-            min = OptionalDouble.empty();
-            max = OptionalDouble.empty();
-            return this;
+            return with(new Blur(raster, radius, mode), OptionalDouble.empty(), OptionalDouble.empty());
         } else {
-            return eval().gaussianBlur(radius);
+            return new RasterImpl(this).gaussianBlur(radius, mode);
         }
     }
 
     @Override
-    public Raster edges(double thresholdSquared) {
-        if (operators.isEmpty()) {
-            operators.add((i, d) -> {
-                int x = i % width();
-                int y = i / width();
-                double value = raster.get(x + y * width());
-                double left = x > 0 ? raster.get(x - 1 + y * width()) : value;
-                double right = x < width() - 1 ? raster.get(x + 1 + y * width()) : value;
-                double top = y > 0 ? raster.get(x + (y - 1) * width()) : value;
-                double bottom = y < height() - 1 ? raster.get(x + (y + 1) * width()) : value;
-                double dx = right - left;
-                double dy = bottom - top;
-                return dx * dx + dy * dy > thresholdSquared ? 1.0 : 0.0;
-            });
-            min = OptionalDouble.empty();
-            max = OptionalDouble.empty();
-            return this;
-        } else {
-            return eval().edges(thresholdSquared);
+    public Pyramid pyramid() {
+        Pyramid pyramid = this.pyramid;
+        if (pyramid == null) {
+            synchronized (this) {
+                pyramid = this.pyramid;
+                if (pyramid == null) {
+                    pyramid = new PyramidImpl(this);
+                    this.pyramid = pyramid;
+                }
+            }
         }
+        return pyramid;
+    }
+
+    @Override
+    public Raster edges(double thresholdSquared) {
+        return stencil(Stencils.edges(thresholdSquared), Boundary.CLAMP);
+    }
+
+    @Override
+    public Raster stencil(Stencil stencil) {
+        return stencil(stencil, Boundary.CLAMP);
+    }
+
+    @Override
+    public Raster stencil(Stencil stencil, Boundary boundary) {
+        return stencil(stencil, boundary, 0);
+    }
+
+    @Override
+    public Raster stencil(Stencil stencil, Boundary boundary, double constant) {
+        return new RasterImpl(new StencilSource(operators.isEmpty() ? raster : this, stencil, boundary, constant));
     }
 
     @Override
     public Raster invert() {
-        double max = max();
-        operators.add((i, d) -> max - d);
-        OptionalDouble temp = min;
-        min = this.max;
-        this.max = temp;
-        return this;
+        double max = Profiler.time("invert", 0, this::max);
+        return with(Operators.invert(max), map(this.max, d -> max - d), map(this.min, d -> max - d), -1, d -> max - d);
     }
 
     @Override
-    public double average() {
-        double sum = 0;
-        for (int i = 0; i < width() * height(); i++) {
-            sum += get(i);
+    public Raster select(Mask mask, Raster selected) {
+        if (mask.width() != width() || mask.height() != height() || selected.width() != width() || selected.height() != height()) {
+            throw new IllegalArgumentException("Mask and rasters must have the same size");
+        }
+        if (selected == this || mask.isEmpty()) return this;
+        if (mask.isFull()) return selected;
+        return new RasterImpl(new MaskedSource(operators.isEmpty() ? raster : this, selected, mask));
+    }
+
+    @Override
+    public Raster subRaster(int x, int y, int width, int height) {
+        int[] region = RegionSource.clip(this, x, y, width, height);
+        if (region[0] == 0 && region[1] == 0 && region[2] == width() && region[3] == height()) return this;
+        List<Operator> operators = new ArrayList<>(this.operators.size());
+        for (Operator operator : this.operators) {
+            Operator cropped = operator.region(region[0], region[1], region[2], region[3]);
+            if (cropped == null) return new RasterImpl(RegionSource.of(this, x, y, width, height));
+            operators.add(cropped);
         }
-        return sum / (width() * height());
+        Raster source = raster.subRaster(region[0], region[1], region[2], region[3]);
+        if (operators.isEmpty()) return source;
+        return new RasterImpl(source, Collections.unmodifiableList(operators), OptionalDouble.empty(), OptionalDouble.empty(), null, null);
+    }
+
+    @Override
+    public RasterStatistics statistics() {
+        RasterStatistics statistics = this.statistics;
+        if (statistics != null) return statistics;
+        statistics = Profiler.time("statistics", (long) width() * height(), () -> RasterStatistics.of(this));
+        if (!min.isPresent()) min = OptionalDouble.of(statistics.min());
+        if (!max.isPresent()) max = OptionalDouble.of(statistics.max());
+        this.statistics = statistics;
+        return statistics;
+    }
+
+    @Override
+    public Histogram histogram() {
+        Histogram histogram = this.histogram;
+        if (histogram != null) return histogram;
+        RasterStatistics statistics = statistics();
+        histogram = Profiler.time("histogram", (long) width() * height(), () -> Histogram.of(this, statistics.count() == 0 ? 0 : statistics.min(), statistics.count() == 0 ? 0 : statistics.max()));
+        this.histogram = histogram;
+        return histogram;
+    }
+
+    @Override
+    public double percentile(double percentile) {
+        return histogram().percentile(percentile);
+    }
+
+    @Override
+    public double average() {
+        return statistics().average();
     }
 
     @Override
     public double deviation() {
-        throw new UnsupportedOperationException();
+        return statistics().deviation();
     }
 
     @Override
     public double min() {
+        OptionalDouble min = this.min;
         if (min.isPresent()) return min.getAsDouble();
-        double min = Double.MAX_VALUE;
-        for (int i = 0; i < width() * height(); i++) {
-            min = Math.min(min, get(i));
-        }
-        this.min = OptionalDouble.of(min);
-        return min;
+        return statistics().min();
     }
 
     @Override
     public double max() {
+        OptionalDouble max = this.max;
         if (max.isPresent()) return max.getAsDouble();
-        double max = Double.MIN_VALUE;
-        for (int i = 0; i < width() * height(); i++) {
-            max = Math.max(max, get(i));
-        }
-        this.max = OptionalDouble.of(max);
-        return max;
+        return statistics().max();
     }
 
     @Override
     public double get(int index) {
-        double value = raster.get(index);
-        for (BiFunction<Integer, Double, Double> operator : operators) {
-            value = operator.apply(index, value);
-        }
+        return kernel.apply(index, raster.get(index));
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        raster.get(index, values, offset, length);
+        kernel.apply(index, values, offset, length);
+    }
+
+    private RasterImpl with(Operator operator, OptionalDouble min, OptionalDouble max) {
+        return with(operator, min, max, null, null);
+    }
+
+    private RasterImpl with(Operator operator, OptionalDouble min, OptionalDouble max, double scale, DoubleUnaryOperator transform) {
+        RasterStatistics statistics = this.statistics;
+        Histogram histogram = this.histogram;
+        return with(operator, min, max, statistics == null ? null : statistics.affine(scale, transform), histogram == null ? null : histogram.affine(scale, transform));
+    }
+
+    private RasterImpl with(Operator operator, OptionalDouble min, OptionalDouble max, RasterStatistics statistics, Histogram histogram) {
+        List<Operator> operators = new ArrayList<>(this.operators.size() + 1);
+        operators.addAll(this.operators);
+        operators.add(operator);
+        return new RasterImpl(raster, Collections.unmodifiableList(operators), min, max, statistics, histogram);
+    }
+
+    private static OptionalDouble map(OptionalDouble value, DoubleUnaryOperator operator) {
+        if (value.isPresent()) return OptionalDouble.of(operator.applyAsDouble(value.getAsDouble()));
         return value;
     }
 }
@@ -0,0 +1,264 @@
+package de.yoyosource.data.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class RasterMemory {
+
+    private static final Object LOCK = new Object();
+    private static final ReferenceQueue<Evictable> RELEASED = new ReferenceQueue<>();
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+    private static final LongAdder SPILLS = new LongAdder();
+
+    private static volatile long budget = Long.getLong("imageprocessor.memory.budget", Long.MAX_VALUE);
+    private static volatile File spillDirectory = System.getProperty("imageprocessor.memory.spill") == null ? null : new File(System.getProperty("imageprocessor.memory.spill"));
+    private static long resident;
+    private static long peak;
+    private static Entry hand;
+    private static int entries;
+
+    private RasterMemory() {
+    }
+
+    public interface Evictable {
+        boolean evict(File spillDirectory);
+    }
+
+    public static long budget() {
+        return budget;
+    }
+
+    public static boolean isBounded() {
+        return budget != Long.MAX_VALUE;
+    }
+
+    public static void setBudget(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("budget must not be negative");
+        budget = bytes;
+        synchronized (LOCK) {
+            evict(null);
+        }
+    }
+
+    public static File spillDirectory() {
+        return spillDirectory;
+    }
+
+    public static void setSpillDirectory(File directory) {
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IllegalArgumentException("Cannot create spill directory " + directory);
+        }
+        spillDirectory = directory;
+    }
+
+    public static Counters counters() {
+        synchronized (LOCK) {
+            return new Counters(HITS.sum(), MISSES.sum(), EVICTIONS.sum(), SPILLS.sum(), resident, peak, budget);
+        }
+    }
+
+    public static void resetCounters() {
+        HITS.reset();
+        MISSES.reset();
+        EVICTIONS.reset();
+        SPILLS.reset();
+        synchronized (LOCK) {
+            peak = resident;
+        }
+    }
+
+    public static Entry admit(Evictable owner, Entry entry, long bytes) {
+        synchronized (LOCK) {
+            release();
+            if (entry == null) {
+                entry = new Entry(owner, bytes);
+                link(entry);
+            } else {
+                MISSES.increment();
+            }
+            if (!entry.resident) {
+                entry.resident = true;
+                resident += entry.bytes;
+                peak = Math.max(peak, resident);
+            }
+            entry.referenced = true;
+            evict(entry);
+            return entry;
+        }
+    }
+
+    static void spilled() {
+        SPILLS.increment();
+    }
+
+    static File spillFile(File directory) {
+        try {
+            File file = File.createTempFile("raster-", ".bin", directory);
+            file.deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static void discard(Entry entry) {
+        synchronized (LOCK) {
+            entry.clear();
+            drop(entry);
+        }
+    }
+
+    private static void release() {
+        Object reference;
+        while ((reference = RELEASED.poll()) != null) {
+            drop((Entry) reference);
+        }
+    }
+
+    private static void drop(Entry entry) {
+        if (entry.resident) resident -= entry.bytes;
+        entry.resident = false;
+        if (entry.spill != null) entry.spill.delete();
+        unlink(entry);
+    }
+
+    private static void link(Entry entry) {
+        if (hand == null) {
+            entry.previous = entry;
+            entry.next = entry;
+            hand = entry;
+        } else {
+            entry.next = hand;
+            entry.previous = hand.previous;
+            hand.previous.next = entry;
+            hand.previous = entry;
+        }
+        entries++;
+    }
+
+    private static void unlink(Entry entry) {
+        if (entry.next == null) return;
+        if (entry.next == entry) {
+            hand = null;
+        } else {
+            entry.previous.next = entry.next;
+            entry.next.previous = entry.previous;
+            if (hand == entry) hand = entry.next;
+        }
+        entry.previous = null;
+        entry.next = null;
+        entries--;
+    }
+
+    private static void evict(Entry keep) {
+        long budget = RasterMemory.budget;
+        File directory = spillDirectory;
+        for (int scanned = 0; resident > budget && hand != null && scanned < 2 * entries; scanned++) {
+            Entry entry = hand;
+            hand = entry.next;
+            if (entry == keep || !entry.resident) continue;
+            if (entry.referenced) {
+                entry.referenced = false;
+                continue;
+            }
+            Evictable owner = entry.get();
+            if (owner != null && owner.evict(directory)) {
+                entry.resident = false;
+                resident -= entry.bytes;
+                EVICTIONS.increment();
+            }
+        }
+    }
+
+    public static final class Entry extends WeakReference<Evictable> {
+        private final long bytes;
+        private volatile boolean referenced;
+        private boolean resident;
+        private volatile File spill;
+        private Entry previous;
+        private Entry next;
+
+        private Entry(Evictable owner, long bytes) {
+            super(owner, RELEASED);
+            this.bytes = bytes;
+        }
+
+        public void touch() {
+            HITS.increment();
+            if (!referenced) referenced = true;
+        }
+
+        public void touch(int index, int width) {
+            if (index % width == 0) HITS.increment();
+            if (!referenced) referenced = true;
+        }
+
+        public File spill() {
+            return spill;
+        }
+
+        void spill(File file) {
+            spill = file;
+        }
+    }
+
+    public static final class Counters {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long spills;
+        private final long resident;
+        private final long peak;
+        private final long budget;
+
+        private Counters(long hits, long misses, long evictions, long spills, long resident, long peak, long budget) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.spills = spills;
+            this.resident = resident;
+            this.peak = peak;
+            this.budget = budget;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        public long evictions() {
+            return evictions;
+        }
+
+        public long spills() {
+            return spills;
+        }
+
+        public long residentBytes() {
+            return resident;
+        }
+
+        public long peakBytes() {
+            return peak;
+        }
+
+        public long budget() {
+            return budget;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d hits, %d misses, %d evictions, %d spills, %.1f MB resident (peak %.1f MB) of %s",
+                    hits, misses, evictions, spills, resident / 1e6, peak / 1e6, budget == Long.MAX_VALUE ? "unbounded" : String.format(Locale.ROOT, "%.1f MB", budget / 1e6));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.RasterSource;
+
+public final class RegionSource implements RasterSource {
+
+    private final RasterSource parent;
+    private final int offset;
+    private final int stride;
+    private final int width;
+    private final int height;
+
+    public RegionSource(RasterSource parent, int offset, int stride, int width, int height) {
+        if (offset < 0 || stride < width || width < 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid region offset=" + offset + " stride=" + stride + " size=" + width + "x" + height);
+        }
+        this.parent = parent;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+    }
+
+    public static RasterSource of(RasterSource parent, int x, int y, int width, int height) {
+        int[] region = clip(parent, x, y, width, height);
+        if (region[0] == 0 && region[1] == 0 && region[2] == parent.width() && region[3] == parent.height()) {
+            return parent;
+        }
+        if (parent instanceof RegionSource) {
+            RegionSource source = (RegionSource) parent;
+            return new RegionSource(source.parent, source.offset + region[1] * source.stride + region[0], source.stride, region[2], region[3]);
+        }
+        return new RegionSource(parent, region[1] * parent.width() + region[0], parent.width(), region[2], region[3]);
+    }
+
+    public static int[] clip(RasterSource parent, int x, int y, int width, int height) {
+        int x2 = Math.min(parent.width(), Math.max(0, x));
+        int y2 = Math.min(parent.height(), Math.max(0, y));
+        int width2 = Math.max(0, Math.min(parent.width(), x + width) - x2);
+        int height2 = Math.max(0, Math.min(parent.height(), y + height) - y2);
+        return new int[]{x2, y2, width2, height2};
+    }
+
+    public RasterSource parent() {
+        return parent;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public int stride() {
+        return stride;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public double get(int index) {
+        if (width == stride) return parent.get(offset + index);
+        int y = index / width;
+        return parent.get(offset + y * stride + index - y * width);
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        if (width == stride) {
+            parent.get(this.offset + index, values, offset, length);
+            return;
+        }
+        int y = index / width;
+        int x = index - y * width;
+        while (length > 0) {
+            int count = Math.min(length, width - x);
+            parent.get(this.offset + y * stride + x, values, offset, count);
+            offset += count;
+            length -= count;
+            x = 0;
+            y++;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package de.yoyosource.data.impl;
+
+final class ScalarArrayOps implements ArrayOps {
+
+    static final ScalarArrayOps INSTANCE = new ScalarArrayOps();
+
+    private ScalarArrayOps() {
+    }
+
+    @Override
+    public boolean vectorized() {
+        return false;
+    }
+
+    @Override
+    public void add(double[] values, int offset, int length, double value) {
+        for (int i = offset; i < offset + length; i++) values[i] = values[i] + value;
+    }
+
+    @Override
+    public void subtract(double[] values, int offset, int length, double value) {
+        for (int i = offset; i < offset + length; i++) values[i] = values[i] - value;
+    }
+
+    @Override
+    public void multiply(double[] values, int offset, int length, double value) {
+        for (int i = offset; i < offset + length; i++) values[i] = values[i] * value;
+    }
+
+    @Override
+    public void divide(double[] values, int offset, int length, double value) {
+        for (int i = offset; i < offset + length; i++) values[i] = values[i] / value;
+    }
+
+    @Override
+    public void clamp(double[] values, int offset, int length, double min, double max) {
+        for (int i = offset; i < offset + length; i++) values[i] = Math.min(Math.max(values[i], min), max);
+    }
+
+    @Override
+    public void min(double[] values, int offset, int length, double value) {
+        for (int i = offset; i < offset + length; i++) values[i] = Math.min(values[i], value);
+    }
+
+    @Override
+    public void minCutOff(double[] values, int offset, int length, double value, double cutOffValue) {
+        for (int i = offset; i < offset + length; i++) values[i] = values[i] < value ? cutOffValue : values[i];
+    }
+
+    @Override
+    public void max(double[] values, int offset, int length, double value) {
+        for (int i = offset; i < offset + length; i++) values[i] = Math.max(values[i], value);
+    }
+
+    @Override
+    public void maxCutOff(double[] values, int offset, int length, double value, double cutOffValue) {
+        for (int i = offset; i < offset + length; i++) values[i] = values[i] > value ? cutOffValue : values[i];
+    }
+
+    @Override
+    public void invert(double[] values, int offset, int length, double max) {
+        for (int i = offset; i < offset + length; i++) values[i] = max - values[i];
+    }
+
+    @Override
+    public void add(double[] values, int offset, double[] operand, int length) {
+        for (int i = 0; i < length; i++) values[offset + i] = values[offset + i] + operand[i];
+    }
+
+    @Override
+    public void subtract(double[] values, int offset, double[] operand, int length) {
+        for (int i = 0; i < length; i++) values[offset + i] = values[offset + i] - operand[i];
+    }
+
+    @Override
+    public void multiply(double[] values, int offset, double[] operand, int length) {
+        for (int i = 0; i < length; i++) values[offset + i] = values[offset + i] * operand[i];
+    }
+
+    @Override
+    public void divide(double[] values, int offset, double[] operand, int length) {
+        for (int i = 0; i < length; i++) values[offset + i] = values[offset + i] / operand[i];
+    }
+
+    @Override
+    public void min(double[] values, int offset, double[] operand, int length) {
+        for (int i = 0; i < length; i++) values[offset + i] = Math.min(values[offset + i], operand[i]);
+    }
+
+    @Override
+    public void max(double[] values, int offset, double[] operand, int length) {
+        for (int i = 0; i < length; i++) values[offset + i] = Math.max(values[offset + i], operand[i]);
+    }
+
+    @Override
+    public double reduceMin(double[] values, int offset, int length, double identity) {
+        double min = identity;
+        for (int i = offset; i < offset + length; i++) min = Math.min(min, values[i]);
+        return min;
+    }
+
+    @Override
+    public double reduceMax(double[] values, int offset, int length, double identity) {
+        double max = identity;
+        for (int i = offset; i < offset + length; i++) max = Math.max(max, values[i]);
+        return max;
+    }
+}
@@ -0,0 +1,70 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.RasterStorage;
+
+public class ShortStorage implements RasterStorage {
+
+    private final int width;
+    private final int height;
+    private final short[] data;
+
+    public ShortStorage(int width, int height) {
+        this(width, height, new short[width * height]);
+    }
+
+    public ShortStorage(int width, int height, short[] data) {
+        this.width = width;
+        this.height = height;
+        this.data = data;
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public Precision precision() {
+        return Precision.SHORT;
+    }
+
+    public short[] data() {
+        return data;
+    }
+
+    @Override
+    public double get(int index) {
+        return data[index] & 0xFFFF;
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            values[offset + i] = data[index + i] & 0xFFFF;
+        }
+    }
+
+    @Override
+    public void set(int index, double value) {
+        data[index] = (short) saturate(value, 0xFFFF);
+    }
+
+    @Override
+    public void set(int index, double[] values, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            data[index + i] = (short) saturate(values[offset + i], 0xFFFF);
+        }
+    }
+
+    private static int saturate(double value, int max) {
+        if (!(value > 0)) return 0;
+        if (value >= max) return max;
+        return (int) Math.rint(value);
+    }
+}
@@ -0,0 +1,241 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Boundary;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.RasterSource;
+import de.yoyosource.data.Stencil;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class StencilSource implements RasterSource {
+
+    private static final int TILE_PIXELS = 1 << 16;
+    private static final int POOLED_TILES = 4;
+    private static final AtomicLong IDS = new AtomicLong();
+    private static final ThreadLocal<Tiles> TILES = ThreadLocal.withInitial(Tiles::new);
+
+    private final RasterSource source;
+    private final Stencil stencil;
+    private final Boundary boundary;
+    private final double constant;
+    private final int width;
+    private final int height;
+    private final int radius;
+    private final int tileRows;
+    private final long id = IDS.incrementAndGet();
+
+    public StencilSource(RasterSource source, Stencil stencil, Boundary boundary, double constant) {
+        this.source = source;
+        this.stencil = stencil;
+        this.boundary = boundary;
+        this.constant = constant;
+        this.width = source.width();
+        this.height = source.height();
+        this.radius = stencil.radius();
+        if (radius < 0) throw new IllegalArgumentException("Stencil radius must not be negative");
+        this.tileRows = Math.max(1, Math.min(height, Math.max(2 * radius + 1, TILE_PIXELS / Math.max(1, width))));
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public double get(int index) {
+        Tile tile = tile(index / width);
+        return tile.values[index - tile.from * width];
+    }
+
+    @Override
+    public void get(int index, double[] values, int offset, int length) {
+        int y = index / width;
+        if (length * 8 <= width && (index + length - 1) / width == y && TILES.get().find(id, y) == null) {
+            segment(y, index - y * width, values, offset, length);
+            return;
+        }
+        while (length > 0) {
+            Tile tile = tile(index / width);
+            int count = Math.min(length, tile.to * width - index);
+            System.arraycopy(tile.values, index - tile.from * width, values, offset, count);
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public Raster subRaster(int x, int y, int width, int height) {
+        int[] region = RegionSource.clip(this, x, y, width, height);
+        int fromX = Math.max(0, region[0] - radius);
+        int fromY = Math.max(0, region[1] - radius);
+        int toX = Math.min(this.width, region[0] + region[2] + radius);
+        int toY = Math.min(this.height, region[1] + region[3] + radius);
+        boolean clipped = fromX > region[0] - radius || fromY > region[1] - radius || toX < region[0] + region[2] + radius || toY < region[1] + region[3] + radius;
+        if (boundary == Boundary.WRAP && clipped) {
+            return new RasterImpl(RegionSource.of(this, x, y, width, height));
+        }
+        StencilSource halo = new StencilSource(source.subRaster(fromX, fromY, toX - fromX, toY - fromY), stencil, boundary, constant);
+        return new RasterImpl(RegionSource.of(halo, region[0] - fromX, region[1] - fromY, region[2], region[3]));
+    }
+
+    private Tile tile(int y) {
+        Tiles tiles = TILES.get();
+        Tile tile = tiles.find(id, y);
+        if (tile != null) return tile;
+        tile = tiles.acquire(id);
+        try {
+            compute(tile, y);
+        } finally {
+            tile.busy = false;
+        }
+        return tile;
+    }
+
+    private void compute(Tile tile, int from) {
+        int to = Math.min(height, from + tileRows);
+        int rows = to - from;
+        int stride = width + 2 * radius;
+        int paddedRows = rows + 2 * radius;
+        if (tile.padded == null || tile.padded.length < stride * paddedRows) {
+            tile.padded = new double[stride * paddedRows];
+        }
+        if (tile.values == null || tile.values.length < rows * width) {
+            tile.values = new double[rows * width];
+        }
+        tile.owner = 0;
+        tile.from = -1;
+        tile.to = -1;
+
+        double[] padded = tile.padded;
+        for (int row = 0; row < paddedRows; row++) {
+            int y = from - radius + row;
+            int start = row * stride;
+            if (boundary == Boundary.CONSTANT && (y < 0 || y >= height)) {
+                Arrays.fill(padded, start, start + stride, constant);
+                continue;
+            }
+            source.get(map(y, height) * width, padded, start + radius, width);
+            for (int x = 1; x <= radius; x++) {
+                padded[start + radius - x] = boundary == Boundary.CONSTANT ? constant : padded[start + radius + map(-x, width)];
+                padded[start + radius + width - 1 + x] = boundary == Boundary.CONSTANT ? constant : padded[start + radius + map(width - 1 + x, width)];
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            stencil.apply(padded, stride, (row + radius) * stride + radius, tile.values, row * width, width);
+        }
+        tile.owner = id;
+        tile.from = from;
+        tile.to = to;
+    }
+
+    private void segment(int y, int x, double[] values, int offset, int length) {
+        Tiles tiles = TILES.get();
+        int stride = length + 2 * radius;
+        double[] padded = tiles.segment(stride * (2 * radius + 1));
+        try {
+            segment(padded, stride, y, x, values, offset, length);
+        } finally {
+            tiles.depth--;
+        }
+    }
+
+    private void segment(double[] padded, int stride, int y, int x, double[] values, int offset, int length) {
+        int from = Math.max(0, x - radius);
+        int to = Math.min(width, x + length + radius);
+        for (int row = 0; row <= 2 * radius; row++) {
+            int sourceY = y - radius + row;
+            int start = row * stride - (x - radius);
+            if (boundary == Boundary.CONSTANT && (sourceY < 0 || sourceY >= height)) {
+                Arrays.fill(padded, row * stride, (row + 1) * stride, constant);
+                continue;
+            }
+            int line = map(sourceY, height) * width;
+            source.get(line + from, padded, start + from, to - from);
+            for (int column = x - radius; column < from; column++) {
+                padded[start + column] = boundary == Boundary.CONSTANT ? constant : source.get(line + map(column, width));
+            }
+            for (int column = to; column < x + length + radius; column++) {
+                padded[start + column] = boundary == Boundary.CONSTANT ? constant : source.get(line + map(column, width));
+            }
+        }
+        stencil.apply(padded, stride, radius * stride + radius, values, offset, length);
+    }
+
+    private int map(int value, int size) {
+        if (value >= 0 && value < size) return value;
+        switch (boundary) {
+            case REFLECT: {
+                int period = 2 * size;
+                int reflected = Math.floorMod(value, period);
+                return reflected < size ? reflected : period - 1 - reflected;
+            }
+            case WRAP:
+                return Math.floorMod(value, size);
+            default:
+                return value < 0 ? 0 : size - 1;
+        }
+    }
+
+    private static final class Tile {
+        private long owner;
+        private int from = -1;
+        private int to = -1;
+        private long used;
+        private boolean busy;
+        private double[] padded;
+        private double[] values;
+    }
+
+    private static final class Tiles {
+        private final Tile[] tiles = new Tile[POOLED_TILES];
+        private double[][] segments = new double[POOLED_TILES][];
+        private int depth;
+        private long clock;
+
+        private Tile find(long owner, int y) {
+            for (Tile tile : tiles) {
+                if (tile != null && tile.owner == owner && y >= tile.from && y < tile.to) {
+                    tile.used = ++clock;
+                    return tile;
+                }
+            }
+            return null;
+        }
+
+        private Tile acquire(long owner) {
+            Tile victim = null;
+            for (int i = 0; i < tiles.length; i++) {
+                if (tiles[i] == null) tiles[i] = new Tile();
+                Tile tile = tiles[i];
+                if (tile.busy) continue;
+                if (tile.owner == owner) {
+                    victim = tile;
+                    break;
+                }
+                if (victim == null || tile.used < victim.used) victim = tile;
+            }
+            if (victim == null) victim = new Tile();
+            victim.busy = true;
+            victim.used = ++clock;
+            return victim;
+        }
+
+        private double[] segment(int length) {
+            if (depth == segments.length) segments = Arrays.copyOf(segments, depth * 2);
+            double[] segment = segments[depth];
+            if (segment == null || segment.length < length) {
+                segment = new double[length];
+                segments[depth] = segment;
+            }
+            depth++;
+            return segment;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Stencil;
+
+import java.util.Arrays;
+
+public final class Stencils {
+
+    private static final double[][] SOBEL_X = {{-1, 0, 1}, {-2, 0, 2}, {-1, 0, 1}};
+    private static final double[][] SOBEL_Y = {{-1, -2, -1}, {0, 0, 0}, {1, 2, 1}};
+
+    private Stencils() {
+    }
+
+    public static Stencil convolution(double[][] weights) {
+        return new Convolution(weights);
+    }
+
+    public static Stencil sobelX() {
+        return convolution(SOBEL_X);
+    }
+
+    public static Stencil sobelY() {
+        return convolution(SOBEL_Y);
+    }
+
+    public static Stencil sobel() {
+        return new Sobel();
+    }
+
+    public static Stencil laplacian() {
+        return convolution(new double[][]{{0, 1, 0}, {1, -4, 1}, {0, 1, 0}});
+    }
+
+    public static Stencil sharpen() {
+        return convolution(new double[][]{{0, -1, 0}, {-1, 5, -1}, {0, -1, 0}});
+    }
+
+    public static Stencil edges(double thresholdSquared) {
+        return new Edges(thresholdSquared);
+    }
+
+    private static final class Convolution implements Stencil {
+        private final int radius;
+        private final double[] weights;
+        private final int[] dx;
+        private final int[] dy;
+
+        private Convolution(double[][] weights) {
+            if (weights.length == 0 || weights.length % 2 == 0) {
+                throw new IllegalArgumentException("Kernel needs an odd number of rows");
+            }
+            int columns = weights[0].length;
+            if (columns % 2 == 0) throw new IllegalArgumentException("Kernel needs an odd number of columns");
+            int taps = 0;
+            for (double[] row : weights) {
+                if (row.length != columns) throw new IllegalArgumentException("Kernel rows must have the same length");
+                for (double weight : row) {
+                    if (weight != 0) taps++;
+                }
+            }
+            this.radius = Math.max(weights.length, columns) / 2;
+            this.weights = new double[taps];
+            this.dx = new int[taps];
+            this.dy = new int[taps];
+            int tap = 0;
+            for (int y = 0; y < weights.length; y++) {
+                for (int x = 0; x < columns; x++) {
+                    if (weights[y][x] == 0) continue;
+                    this.weights[tap] = weights[y][x];
+                    this.dx[tap] = x - columns / 2;
+                    this.dy[tap] = y - weights.length / 2;
+                    tap++;
+                }
+            }
+        }
+
+        @Override
+        public int radius() {
+            return radius;
+        }
+
+        @Override
+        public void apply(double[] source, int stride, int index, double[] target, int offset, int length) {
+            Arrays.fill(target, offset, offset + length, 0);
+            for (int tap = 0; tap < weights.length; tap++) {
+                double weight = weights[tap];
+                int start = index + dy[tap] * stride + dx[tap];
+                for (int i = 0; i < length; i++) {
+                    target[offset + i] += weight * source[start + i];
+                }
+            }
+        }
+    }
+
+    private static final class Sobel implements Stencil {
+        @Override
+        public int radius() {
+            return 1;
+        }
+
+        @Override
+        public void apply(double[] source, int stride, int index, double[] target, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                int center = index + i;
+                double topLeft = source[center - stride - 1];
+                double top = source[center - stride];
+                double topRight = source[center - stride + 1];
+                double left = source[center - 1];
+                double right = source[center + 1];
+                double bottomLeft = source[center + stride - 1];
+                double bottom = source[center + stride];
+                double bottomRight = source[center + stride + 1];
+                double gx = topRight + 2 * right + bottomRight - topLeft - 2 * left - bottomLeft;
+                double gy = bottomLeft + 2 * bottom + bottomRight - topLeft - 2 * top - topRight;
+                target[offset + i] = Math.sqrt(gx * gx + gy * gy);
+            }
+        }
+    }
+
+    private static final class Edges implements Stencil {
+        private final double thresholdSquared;
+
+        private Edges(double thresholdSquared) {
+            this.thresholdSquared = thresholdSquared;
+        }
+
+        @Override
+        public int radius() {
+            return 1;
+        }
+
+        @Override
+        public void apply(double[] source, int stride, int index, double[] target, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                int center = index + i;
+                double dx = source[center + 1] - source[center - 1];
+                double dy = source[center + stride] - source[center - stride];
+                target[offset + i] = dx * dx + dy * dy > thresholdSquared ? 1.0 : 0.0;
+            }
+        }
+    }
+}
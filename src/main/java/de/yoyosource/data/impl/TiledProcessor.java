@@ -0,0 +1,129 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Image;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.RasterStatistics;
+import de.yoyosource.data.TileSink;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+public class TiledProcessor implements Closeable {
+
+    private final ImageInputStream stream;
+    private final ImageReader reader;
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int halo;
+
+    public TiledProcessor(File input, int tileSize, int halo) throws IOException {
+        if (tileSize <= 0) throw new IllegalArgumentException("tileSize must be positive");
+        if (halo < 0) throw new IllegalArgumentException("halo must not be negative");
+        this.stream = ImageIO.createImageInputStream(input);
+        if (stream == null) throw new IOException("Cannot open " + input);
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+        if (!readers.hasNext()) {
+            stream.close();
+            throw new IOException("No image reader for " + input);
+        }
+        this.reader = readers.next();
+        reader.setInput(stream, false, true);
+        this.width = reader.getWidth(0);
+        this.height = reader.getHeight(0);
+        this.tileSize = tileSize;
+        this.halo = halo;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public RasterStatistics reduce(Function<Image, Raster> expression) throws IOException {
+        RasterStatistics statistics = RasterStatistics.EMPTY;
+        for (int y = 0; y < height; y += tileSize) {
+            Rectangle bounds = region(tile(0, y, width));
+            Image strip = read(bounds);
+            for (int x = 0; x < width; x += tileSize) {
+                Rectangle tile = tile(x, y);
+                Rectangle region = region(tile);
+                Raster raster = expression.apply(crop(strip, bounds, region));
+                statistics = statistics.merge(RasterStatistics.of(raster.subRaster(tile.x - region.x, tile.y - region.y, tile.width, tile.height)));
+            }
+        }
+        return statistics;
+    }
+
+    public void process(UnaryOperator<Image> pipeline, TileSink sink) throws IOException {
+        sink.begin(width, height);
+        for (int y = 0; y < height; y += tileSize) {
+            Rectangle bounds = region(tile(0, y, width));
+            Image strip = read(bounds);
+            for (int x = 0; x < width; x += tileSize) {
+                Rectangle tile = tile(x, y);
+                Rectangle region = region(tile);
+                Image image = pipeline.apply(crop(strip, bounds, region));
+                int offsetX = tile.x - region.x;
+                int offsetY = tile.y - region.y;
+                BufferedImage packed = PixelCodec.pack(tile.width, tile.height,
+                        image.red().subRaster(offsetX, offsetY, tile.width, tile.height),
+                        image.green().subRaster(offsetX, offsetY, tile.width, tile.height),
+                        image.blue().subRaster(offsetX, offsetY, tile.width, tile.height),
+                        image.alpha().subRaster(offsetX, offsetY, tile.width, tile.height));
+                sink.write(tile.x, tile.y, tile.width, tile.height, ((DataBufferInt) packed.getRaster().getDataBuffer()).getData());
+            }
+        }
+    }
+
+    private Rectangle tile(int x, int y) {
+        return tile(x, y, Math.min(tileSize, width - x));
+    }
+
+    private Rectangle tile(int x, int y, int width) {
+        return new Rectangle(x, y, width, Math.min(tileSize, height - y));
+    }
+
+    private Rectangle region(Rectangle tile) {
+        int x = Math.max(0, tile.x - halo);
+        int y = Math.max(0, tile.y - halo);
+        int x2 = Math.min(width, tile.x + tile.width + halo);
+        int y2 = Math.min(height, tile.y + tile.height + halo);
+        return new Rectangle(x, y, x2 - x, y2 - y);
+    }
+
+    private Image read(Rectangle region) throws IOException {
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(region);
+        return new ImageImpl(reader.read(0, param));
+    }
+
+    private static Image crop(Image strip, Rectangle bounds, Rectangle region) {
+        int x = region.x - bounds.x;
+        int y = region.y - bounds.y;
+        return new ImageImpl(strip.red().subRaster(x, y, region.width, region.height),
+                strip.green().subRaster(x, y, region.width, region.height),
+                strip.blue().subRaster(x, y, region.width, region.height),
+                strip.alpha().subRaster(x, y, region.width, region.height));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.dispose();
+        stream.close();
+    }
+}
@@ -0,0 +1,233 @@
+package de.yoyosource.pipeline;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Boundary;
+import de.yoyosource.data.Image;
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.RasterStatistics;
+import de.yoyosource.data.impl.Blur;
+import de.yoyosource.data.impl.DoubleStorage;
+import de.yoyosource.data.impl.ImageImpl;
+import de.yoyosource.data.impl.OperandCache;
+import de.yoyosource.data.impl.Parallel;
+import de.yoyosource.data.impl.Profiler;
+import de.yoyosource.data.impl.RasterImpl;
+import de.yoyosource.data.impl.Stencils;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+public class IncrementalRun {
+
+    private static final int TILE_SIZE = 64;
+
+    private final Pipeline pipeline;
+    private final BitSet scheduled = new BitSet();
+    private State[] states;
+    private Image last;
+    private int width;
+    private int height;
+    private long pixels;
+
+    IncrementalRun(Pipeline pipeline) {
+        this.pipeline = pipeline;
+        for (int[] schedule : pipeline.schedules) {
+            for (int id : schedule) {
+                scheduled.set(id);
+            }
+        }
+    }
+
+    public List<Image> run(Image frame) {
+        Rectangle dirty = null;
+        if (last != null && frame instanceof ImageImpl && ((ImageImpl) frame).previous() == last) {
+            dirty = ((ImageImpl) frame).dirty();
+        }
+        return run(frame, dirty);
+    }
+
+    /**
+     * Results are double-buffered: the images returned for a frame stay valid while the next frame runs and are
+     * overwritten by the run after that. Evaluate or copy them to keep them longer.
+     */
+    public List<Image> run(Image frame, Rectangle dirty) {
+        if (states == null || frame.width() != width || frame.height() != height) {
+            width = frame.width();
+            height = frame.height();
+            states = new State[pipeline.nodes.size()];
+            dirty = null;
+        }
+        Rectangle bounds = new Rectangle(0, 0, width, height);
+        dirty = dirty == null ? bounds : dirty.intersection(bounds);
+        if (dirty.isEmpty()) dirty = new Rectangle();
+
+        Rectangle[] changed = new Rectangle[states.length];
+        Raster[] rasters = new Raster[states.length];
+        pixels = 0;
+        for (Node node : pipeline.nodes) {
+            if (!scheduled.get(node.id)) continue;
+            if (states[node.id] == null) states[node.id] = new State(width, height);
+            State state = states[node.id];
+            Rectangle affected = state.statistics == null ? bounds : affected(node, dirty, changed, bounds);
+            if (!affected.isEmpty()) {
+                Profiler.run("incremental " + node.operation, (long) affected.width * affected.height, () -> update(node, frame, rasters, state, affected));
+                pixels += (long) affected.width * affected.height;
+            }
+            changed[node.id] = affected;
+            rasters[node.id] = state.raster();
+        }
+        last = frame;
+
+        List<Image> images = new ArrayList<>(pipeline.outputs.size());
+        for (Node[] channels : pipeline.outputs) {
+            images.add(new ImageImpl(rasters[channels[0].id], rasters[channels[1].id], rasters[channels[2].id], rasters[channels[3].id]));
+        }
+        return images;
+    }
+
+    public long pixels() {
+        return pixels;
+    }
+
+    private Rectangle affected(Node node, Rectangle dirty, Rectangle[] changed, Rectangle bounds) {
+        Rectangle input = new Rectangle();
+        if (node.input == null) {
+            input = dirty;
+        }
+        for (Node dependency : Pipeline.dependencies(node)) {
+            input = union(input, changed[dependency.id]);
+        }
+        if (input.isEmpty()) return input;
+
+        List<Object> arguments = node.arguments;
+        switch (node.operation) {
+            case "gaussianBlur": {
+                BlurMode mode = arguments.size() > 1 ? BlurMode.valueOf((String) arguments.get(1)) : BlurMode.BOX;
+                if (mode == BlurMode.APPROXIMATE) return bounds;
+                return grow(input, Blur.halo((int) Pipeline.number(arguments, 0), mode), Boundary.CLAMP, bounds);
+            }
+            case "edges":
+                return grow(input, Stencils.edges(Pipeline.number(arguments, 0)).radius(), Boundary.CLAMP, bounds);
+            case "sobel":
+            case "laplacian":
+            case "sharpen":
+                return grow(input, Pipeline.stencil(node.operation).radius(), Pipeline.boundary(arguments), bounds);
+            case "normalize":
+                if (!arguments.isEmpty()) return bounds;
+                return states[node.input.id].maxChanged() ? bounds : input;
+            case "invert":
+                return states[node.input.id].maxChanged() ? bounds : input;
+            case "equalize":
+                return bounds;
+            default:
+                return input;
+        }
+    }
+
+    private static Rectangle union(Rectangle a, Rectangle b) {
+        if (b == null || b.isEmpty()) return a;
+        if (a.isEmpty()) return b;
+        return a.union(b);
+    }
+
+    private static Rectangle grow(Rectangle region, int radius, Boundary boundary, Rectangle bounds) {
+        Rectangle grown = new Rectangle(region.x - radius, region.y - radius, region.width + 2 * radius, region.height + 2 * radius);
+        if (boundary == Boundary.WRAP && !bounds.contains(grown)) return bounds;
+        return grown.intersection(bounds);
+    }
+
+    private void update(Node node, Image frame, Raster[] rasters, State state, Rectangle region) {
+        Raster result;
+        if (node.operation.equals("eval")) {
+            Precision precision = node.arguments.isEmpty() ? Precision.DOUBLE : Precision.valueOf((String) node.arguments.get(0));
+            result = rasters[node.input.id].subRaster(region.x, region.y, region.width, region.height).eval(precision);
+        } else {
+            result = Pipeline.evaluate(node, frame, rasters).subRaster(region.x, region.y, region.width, region.height);
+        }
+        double[] data = state.swap().data();
+        int width = this.width;
+        Parallel.forRows(region.width, region.height, (from, to) -> OperandCache.interleaved(() -> {
+            for (int row = from; row < to; row++) {
+                result.get(row * region.width, data, (region.y + row) * width + region.x, region.width);
+            }
+        }));
+        state.update(region);
+    }
+
+    private static final class State {
+        private final DoubleStorage[] buffers = new DoubleStorage[2];
+        private DoubleStorage storage;
+        private Rectangle pending;
+        private final int columns;
+        private final RasterStatistics[] tiles;
+        private RasterStatistics statistics;
+        private double previousMax = Double.NaN;
+
+        private State(int width, int height) {
+            this.buffers[0] = new DoubleStorage(width, height);
+            this.storage = buffers[0];
+            this.columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+            this.tiles = new RasterStatistics[columns * ((height + TILE_SIZE - 1) / TILE_SIZE)];
+        }
+
+        private DoubleStorage swap() {
+            if (statistics == null) return storage;
+            DoubleStorage previous = storage;
+            int next = storage == buffers[0] ? 1 : 0;
+            if (buffers[next] == null) {
+                buffers[next] = new DoubleStorage(previous.width(), previous.height(), previous.data().clone());
+            } else if (pending != null && !pending.isEmpty()) {
+                int width = previous.width();
+                double[] source = previous.data();
+                double[] target = buffers[next].data();
+                for (int y = pending.y; y < pending.y + pending.height; y++) {
+                    System.arraycopy(source, y * width + pending.x, target, y * width + pending.x, pending.width);
+                }
+            }
+            storage = buffers[next];
+            return storage;
+        }
+
+        private void update(Rectangle region) {
+            pending = region;
+            int width = storage.width();
+            int height = storage.height();
+            double[] data = storage.data();
+            int fromColumn = region.x / TILE_SIZE;
+            int toColumn = (region.x + region.width - 1) / TILE_SIZE + 1;
+            int fromRow = region.y / TILE_SIZE;
+            int toRow = (region.y + region.height - 1) / TILE_SIZE + 1;
+            int count = (toColumn - fromColumn) * (toRow - fromRow);
+            Parallel.forEach(count, (long) TILE_SIZE * TILE_SIZE, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int column = fromColumn + i % (toColumn - fromColumn);
+                    int row = fromRow + i / (toColumn - fromColumn);
+                    int x = column * TILE_SIZE;
+                    int tileWidth = Math.min(TILE_SIZE, width - x);
+                    RasterStatistics statistics = RasterStatistics.EMPTY;
+                    for (int y = row * TILE_SIZE; y < Math.min(height, (row + 1) * TILE_SIZE); y++) {
+                        statistics = statistics.merge(RasterStatistics.of(data, y * width + x, tileWidth));
+                    }
+                    tiles[row * columns + column] = statistics;
+                }
+            });
+            RasterStatistics statistics = RasterStatistics.EMPTY;
+            for (RasterStatistics tile : tiles) {
+                if (tile != null) statistics = statistics.merge(tile);
+            }
+            previousMax = this.statistics == null ? Double.NaN : this.statistics.max();
+            this.statistics = statistics;
+        }
+
+        private boolean maxChanged() {
+            return Double.compare(previousMax, statistics.max()) != 0;
+        }
+
+        private Raster raster() {
+            return new RasterImpl(storage, statistics.min(), statistics.max());
+        }
+    }
+}
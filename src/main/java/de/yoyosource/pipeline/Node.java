@@ -0,0 +1,39 @@
+package de.yoyosource.pipeline;
+
+import java.util.List;
+
+final class Node {
+
+    final int id;
+    final String operation;
+    final Node input;
+    final List<Object> arguments;
+
+    int consumers;
+
+    Node(int id, String operation, Node input, List<Object> arguments) {
+        this.id = id;
+        this.operation = operation;
+        this.input = input;
+        this.arguments = arguments;
+    }
+
+    static String key(String operation, Node input, List<Object> arguments) {
+        StringBuilder key = new StringBuilder(operation);
+        key.append('(').append(input == null ? "" : "#" + input.id);
+        for (Object argument : arguments) {
+            key.append(',');
+            if (argument instanceof Node) {
+                key.append('#').append(((Node) argument).id);
+            } else {
+                key.append(argument);
+            }
+        }
+        return key.append(')').toString();
+    }
+
+    @Override
+    public String toString() {
+        return "#" + id + " " + key(operation, input, arguments);
+    }
+}
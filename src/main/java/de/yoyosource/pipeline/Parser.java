@@ -0,0 +1,261 @@
+package de.yoyosource.pipeline;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Boundary;
+import de.yoyosource.data.Precision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class Parser {
+
+    private static final String NEWLINE = "\n";
+
+    private final Pipeline pipeline;
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Integer> lines = new ArrayList<>();
+    private int position;
+
+    Parser(Pipeline pipeline, String source) {
+        this.pipeline = pipeline;
+        tokenize(source);
+    }
+
+    private void tokenize(String source) {
+        String[] sourceLines = source.split("\r?\n", -1);
+        for (int line = 0; line < sourceLines.length; line++) {
+            String text = sourceLines[line];
+            int comment = text.indexOf("//");
+            if (comment >= 0) text = text.substring(0, comment);
+            comment = text.indexOf('#');
+            if (comment >= 0) text = text.substring(0, comment);
+            text = text.replace("{", " { ").replace("}", " } ").replace("->", " -> ").replace("=", " = ").replace(";", " " + NEWLINE + " ");
+            for (String token : text.trim().split("\\s+")) {
+                if (token.isEmpty()) continue;
+                tokens.add(token);
+                lines.add(line + 1);
+            }
+            tokens.add(NEWLINE);
+            lines.add(line + 1);
+        }
+    }
+
+    void parse() {
+        skipNewlines();
+        while (position < tokens.size()) {
+            expect("process");
+            skipNewlines();
+            expect("{");
+            parseProcess();
+            skipNewlines();
+        }
+        if (pipeline.processes() == 0) {
+            throw new PipelineException(line(), "no process block");
+        }
+    }
+
+    private void parseProcess() {
+        Map<String, Node[]> variables = new HashMap<>();
+        Node[] result = null;
+        while (true) {
+            skipNewlines();
+            String token = next();
+            if (token.equals("}")) break;
+            if (result != null) {
+                throw new PipelineException(line(), "statements after return");
+            }
+            if (token.equals("return")) {
+                result = parseChain(variables);
+            } else {
+                identifier(token);
+                if (token.equals("input")) {
+                    throw new PipelineException(line(), "cannot assign to input");
+                }
+                expect("=");
+                variables.put(token, parseChain(variables));
+            }
+            String end = peek();
+            if (!end.equals(NEWLINE) && !end.equals("}")) {
+                throw new PipelineException(line(), "unexpected '" + end + "'");
+            }
+        }
+        if (result == null) {
+            throw new PipelineException(line(), "process block without return");
+        }
+        if (result.length == 1) {
+            result = new Node[]{result[0], result[0], result[0], pipeline.channel(3)};
+        }
+        pipeline.output(result);
+    }
+
+    private Node[] parseChain(Map<String, Node[]> variables) {
+        String start = next();
+        Node[] value;
+        if (start.equals("input")) {
+            value = new Node[]{pipeline.channel(0), pipeline.channel(1), pipeline.channel(2), pipeline.channel(3)};
+            if (peek().equals("->") && isSource(peek(1))) {
+                next();
+                String source = next();
+                value = new Node[]{source.equals("lightness") ? pipeline.node("lightness", null, List.of()) : pipeline.channel(Arrays.asList("red", "green", "blue", "alpha").indexOf(source))};
+            }
+        } else {
+            value = variables.get(start);
+            if (value == null) {
+                throw new PipelineException(line(), "unknown variable '" + start + "'");
+            }
+        }
+
+        while (peek().equals("->")) {
+            next();
+            String operation = next();
+            identifier(operation);
+            List<String> arguments = new ArrayList<>();
+            while (!peek().equals("->") && !peek().equals(NEWLINE) && !peek().equals("}")) {
+                arguments.add(next());
+            }
+            value = apply(operation, arguments, value, variables);
+        }
+        return value;
+    }
+
+    private Node[] apply(String operation, List<String> arguments, Node[] value, Map<String, Node[]> variables) {
+        Node[] result = value.clone();
+        int channels = value.length == 1 ? 1 : 3;
+        for (int channel = 0; channel < channels; channel++) {
+            result[channel] = pipeline.node(operation, value[channel], arguments(operation, arguments, value.length == 1 ? -1 : channel, variables));
+        }
+        return result;
+    }
+
+    private List<Object> arguments(String operation, List<String> arguments, int channel, Map<String, Node[]> variables) {
+        switch (operation) {
+            case "add":
+            case "subtract":
+            case "multiply":
+            case "divide":
+            case "mod":
+            case "min":
+            case "max":
+                arity(operation, arguments, 1, 1);
+                return List.of(operand(arguments.get(0), channel, variables));
+            case "clamp": {
+                arity(operation, arguments, 2, 2);
+                Object min = operand(arguments.get(0), channel, variables);
+                Object max = operand(arguments.get(1), channel, variables);
+                if (min instanceof Node != max instanceof Node) {
+                    throw new PipelineException(line(), "clamp needs two numbers or two rasters");
+                }
+                return List.of(min, max);
+            }
+            case "minCutOff":
+            case "maxCutOff":
+                arity(operation, arguments, 2, 2);
+                return List.of(number(arguments.get(0)), number(arguments.get(1)));
+            case "normalize":
+                arity(operation, arguments, 0, 1);
+                if (arguments.isEmpty()) return List.of();
+                return List.of(number(arguments.get(0)));
+            case "invert":
+            case "equalize":
+                arity(operation, arguments, 0, 0);
+                return List.of();
+            case "gaussianBlur":
+                arity(operation, arguments, 1, 2);
+                if (arguments.size() == 1) return List.of(number(arguments.get(0)));
+                return List.of(number(arguments.get(0)), constant(BlurMode.class, arguments.get(1)));
+            case "edges":
+                arity(operation, arguments, 1, 1);
+                return List.of(number(arguments.get(0)));
+            case "sobel":
+            case "laplacian":
+            case "sharpen":
+                arity(operation, arguments, 0, 1);
+                if (arguments.isEmpty()) return List.of();
+                return List.of(constant(Boundary.class, arguments.get(0)));
+            case "eval":
+                arity(operation, arguments, 0, 1);
+                if (arguments.isEmpty()) return List.of();
+                return List.of(constant(Precision.class, arguments.get(0)));
+            default:
+                throw new PipelineException(line(), "unknown operation '" + operation + "'");
+        }
+    }
+
+    private Object operand(String argument, int channel, Map<String, Node[]> variables) {
+        Node[] variable = variables.get(argument);
+        if (variable == null) return number(argument);
+        if (variable.length == 1) return variable[0];
+        if (channel < 0) {
+            throw new PipelineException(line(), "'" + argument + "' is an image and cannot be used in a raster chain");
+        }
+        return variable[channel];
+    }
+
+    private Double number(String argument) {
+        try {
+            return Double.parseDouble(argument);
+        } catch (NumberFormatException e) {
+            throw new PipelineException(line(), "expected a number or variable but got '" + argument + "'");
+        }
+    }
+
+    private <E extends Enum<E>> String constant(Class<E> type, String argument) {
+        try {
+            return Enum.valueOf(type, argument).name();
+        } catch (IllegalArgumentException e) {
+            throw new PipelineException(line(), "expected one of " + Arrays.toString(type.getEnumConstants()) + " but got '" + argument + "'");
+        }
+    }
+
+    private void arity(String operation, List<String> arguments, int min, int max) {
+        if (arguments.size() < min || arguments.size() > max) {
+            throw new PipelineException(line(), operation + " takes " + (min == max ? min : min + " to " + max) + " arguments but got " + arguments.size());
+        }
+    }
+
+    private static boolean isSource(String token) {
+        return token.equals("lightness") || token.equals("red") || token.equals("green") || token.equals("blue") || token.equals("alpha");
+    }
+
+    private void identifier(String token) {
+        if (!Character.isJavaIdentifierStart(token.charAt(0))) {
+            throw new PipelineException(line(), "expected a name but got '" + token + "'");
+        }
+    }
+
+    private void expect(String expected) {
+        String token = next();
+        if (!token.equals(expected)) {
+            throw new PipelineException(line(), "expected '" + expected + "' but got '" + token + "'");
+        }
+    }
+
+    private void skipNewlines() {
+        while (position < tokens.size() && tokens.get(position).equals(NEWLINE)) {
+            position++;
+        }
+    }
+
+    private String peek() {
+        return peek(0);
+    }
+
+    private String peek(int offset) {
+        return position + offset < tokens.size() ? tokens.get(position + offset) : "";
+    }
+
+    private String next() {
+        if (position >= tokens.size()) {
+            throw new PipelineException(line(), "unexpected end of pipeline");
+        }
+        return tokens.get(position++);
+    }
+
+    private int line() {
+        if (lines.isEmpty()) return 1;
+        return lines.get(Math.min(Math.max(position - 1, 0), lines.size() - 1));
+    }
+}
@@ -0,0 +1,267 @@
+package de.yoyosource.pipeline;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Boundary;
+import de.yoyosource.data.Image;
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.Stencil;
+import de.yoyosource.data.impl.ImageImpl;
+import de.yoyosource.data.impl.RasterImpl;
+import de.yoyosource.data.impl.Stencils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class Pipeline {
+
+    private static final String[] CHANNELS = {"red", "green", "blue", "alpha"};
+
+    final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Node> interned = new HashMap<>();
+    final List<Node[]> outputs = new ArrayList<>();
+    final List<int[]> schedules = new ArrayList<>();
+
+    private Pipeline() {
+    }
+
+    public static Pipeline compile(File file) throws IOException {
+        return compile(Files.readString(file.toPath()));
+    }
+
+    public static Pipeline compile(String source) {
+        Pipeline pipeline = new Pipeline();
+        new Parser(pipeline, source).parse();
+        pipeline.schedule();
+        return pipeline;
+    }
+
+    public int processes() {
+        return outputs.size();
+    }
+
+    public int nodes() {
+        return nodes.size();
+    }
+
+    public String plan() {
+        StringBuilder plan = new StringBuilder();
+        for (int i = 0; i < schedules.size(); i++) {
+            plan.append("process ").append(i).append('\n');
+            for (int id : schedules.get(i)) {
+                Node node = nodes.get(id);
+                plan.append("  ").append(node).append(" consumers=").append(node.consumers).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    public IncrementalRun incremental() {
+        return new IncrementalRun(this);
+    }
+
+    public List<Image> run(Image image) {
+        List<Image> images = new ArrayList<>();
+        run(image, images::add);
+        return images;
+    }
+
+    public void run(Image image, Consumer<Image> output) {
+        Raster[] rasters = new Raster[nodes.size()];
+        int[] remaining = new int[nodes.size()];
+        for (Node node : nodes) {
+            remaining[node.id] = node.consumers;
+        }
+        BitSet owned = new BitSet();
+        BitSet exported = new BitSet();
+        for (Node[] channels : outputs) {
+            for (Node channel : channels) {
+                exported.set(channel.id);
+            }
+        }
+
+        for (int process = 0; process < outputs.size(); process++) {
+            List<Raster> finished = new ArrayList<>();
+            for (int id : schedules.get(process)) {
+                Node node = nodes.get(id);
+                Raster raster = evaluate(node, image, rasters);
+                if (node.operation.equals("eval") && raster != rasters[node.input.id]) owned.set(id);
+                if (node.consumers > 1) {
+                    Raster evaluated = raster.eval();
+                    if (evaluated != raster && node.input != null) owned.set(id);
+                    raster = evaluated;
+                }
+                rasters[id] = raster;
+                for (Node dependency : dependencies(node)) {
+                    release(dependency, rasters, remaining, owned, exported, finished);
+                }
+            }
+
+            Node[] channels = outputs.get(process);
+            Image result = new ImageImpl(rasters[channels[0].id], rasters[channels[1].id], rasters[channels[2].id], rasters[channels[3].id]).eval();
+            for (Node channel : channels) {
+                release(channel, rasters, remaining, owned, exported, finished);
+            }
+            for (Raster raster : finished) {
+                ((RasterImpl) raster).discard();
+            }
+            output.accept(result);
+        }
+    }
+
+    private static void release(Node node, Raster[] rasters, int[] remaining, BitSet owned, BitSet exported, List<Raster> finished) {
+        if (--remaining[node.id] == 0) {
+            if (owned.get(node.id) && !exported.get(node.id) && rasters[node.id] instanceof RasterImpl) finished.add(rasters[node.id]);
+            rasters[node.id] = null;
+        }
+    }
+
+    static Raster evaluate(Node node, Image image, Raster[] rasters) {
+        Raster input = node.input == null ? null : rasters[node.input.id];
+        List<Object> arguments = node.arguments;
+        switch (node.operation) {
+            case "red":
+                return image.red();
+            case "green":
+                return image.green();
+            case "blue":
+                return image.blue();
+            case "alpha":
+                return image.alpha();
+            case "lightness":
+                return image.lightness();
+            case "add":
+                return arguments.get(0) instanceof Node ? input.add(raster(arguments, 0, rasters)) : input.add(number(arguments, 0));
+            case "subtract":
+                return arguments.get(0) instanceof Node ? input.subtract(raster(arguments, 0, rasters)) : input.subtract(number(arguments, 0));
+            case "multiply":
+                return arguments.get(0) instanceof Node ? input.multiply(raster(arguments, 0, rasters)) : input.multiply(number(arguments, 0));
+            case "divide":
+                return arguments.get(0) instanceof Node ? input.divide(raster(arguments, 0, rasters)) : input.divide(number(arguments, 0));
+            case "mod":
+                return arguments.get(0) instanceof Node ? input.mod(raster(arguments, 0, rasters)) : input.mod(number(arguments, 0));
+            case "min":
+                return arguments.get(0) instanceof Node ? input.min(raster(arguments, 0, rasters)) : input.min(number(arguments, 0));
+            case "max":
+                return arguments.get(0) instanceof Node ? input.max(raster(arguments, 0, rasters)) : input.max(number(arguments, 0));
+            case "clamp":
+                return arguments.get(0) instanceof Node ? input.clamp(raster(arguments, 0, rasters), raster(arguments, 1, rasters)) : input.clamp(number(arguments, 0), number(arguments, 1));
+            case "minCutOff":
+                return input.min(number(arguments, 0), number(arguments, 1));
+            case "maxCutOff":
+                return input.max(number(arguments, 0), number(arguments, 1));
+            case "normalize":
+                return arguments.isEmpty() ? input.normalize() : input.normalize(number(arguments, 0));
+            case "equalize":
+                return input.equalize();
+            case "invert":
+                return input.invert();
+            case "gaussianBlur":
+                return input.gaussianBlur((int) number(arguments, 0), arguments.size() > 1 ? BlurMode.valueOf((String) arguments.get(1)) : BlurMode.BOX);
+            case "edges":
+                return input.edges(number(arguments, 0));
+            case "sobel":
+            case "laplacian":
+            case "sharpen":
+                return input.stencil(stencil(node.operation), boundary(arguments));
+            case "eval":
+                return input.eval(arguments.isEmpty() ? Precision.DOUBLE : Precision.valueOf((String) arguments.get(0)));
+            default:
+                throw new IllegalStateException("Unknown operation " + node.operation);
+        }
+    }
+
+    static Stencil stencil(String operation) {
+        switch (operation) {
+            case "sobel":
+                return Stencils.sobel();
+            case "laplacian":
+                return Stencils.laplacian();
+            case "sharpen":
+                return Stencils.sharpen();
+            default:
+                throw new IllegalStateException("No stencil for " + operation);
+        }
+    }
+
+    static Boundary boundary(List<Object> arguments) {
+        return arguments.isEmpty() ? Boundary.CLAMP : Boundary.valueOf((String) arguments.get(0));
+    }
+
+    static double number(List<Object> arguments, int index) {
+        return (Double) arguments.get(index);
+    }
+
+    private static Raster raster(List<Object> arguments, int index, Raster[] rasters) {
+        return rasters[((Node) arguments.get(index)).id];
+    }
+
+    static List<Node> dependencies(Node node) {
+        List<Node> dependencies = new ArrayList<>();
+        if (node.input != null) dependencies.add(node.input);
+        for (Object argument : node.arguments) {
+            if (argument instanceof Node) dependencies.add((Node) argument);
+        }
+        return dependencies;
+    }
+
+    Node node(String operation, Node input, List<Object> arguments) {
+        String key = Node.key(operation, input, arguments);
+        Node node = interned.get(key);
+        if (node == null) {
+            node = new Node(nodes.size(), operation, input, Collections.unmodifiableList(new ArrayList<>(arguments)));
+            nodes.add(node);
+            interned.put(key, node);
+            for (Node dependency : dependencies(node)) {
+                dependency.consumers++;
+            }
+        }
+        return node;
+    }
+
+    Node channel(int channel) {
+        return node(CHANNELS[channel], null, Collections.emptyList());
+    }
+
+    void output(Node[] channels) {
+        for (Node channel : channels) {
+            channel.consumers++;
+        }
+        outputs.add(channels);
+    }
+
+    private void schedule() {
+        BitSet scheduled = new BitSet();
+        for (Node[] channels : outputs) {
+            BitSet needed = new BitSet();
+            for (Node channel : channels) {
+                mark(channel, needed, scheduled);
+            }
+            schedules.add(needed.stream().toArray());
+            scheduled.or(needed);
+        }
+        for (Node node : nodes) {
+            if (!scheduled.get(node.id)) {
+                for (Node dependency : dependencies(node)) {
+                    dependency.consumers--;
+                }
+            }
+        }
+    }
+
+    private void mark(Node node, BitSet needed, BitSet scheduled) {
+        if (scheduled.get(node.id) || needed.get(node.id)) return;
+        needed.set(node.id);
+        for (Node dependency : dependencies(node)) {
+            mark(dependency, needed, scheduled);
+        }
+    }
+}
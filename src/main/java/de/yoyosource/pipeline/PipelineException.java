@@ -0,0 +1,8 @@
+package de.yoyosource.pipeline;
+
+public class PipelineException extends IllegalArgumentException {
+
+    public PipelineException(int line, String message) {
+        super("line " + line + ": " + message);
+    }
+}
@@ -0,0 +1,62 @@
+package de.yoyosource.data;
+
+import de.yoyosource.data.impl.ImageImpl;
+
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    public static BufferedImage argb(int width, int height, long seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(16);
+                image.setRGB(x, y, (255 - x % 64) << 24 | (x + noise & 0xFF) << 16 | (y * 3 & 0xFF) << 8 | (x ^ y) & 0xFF);
+            }
+        }
+        return image;
+    }
+
+    public static BufferedImage solid(int width, int height, int argb) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, argb);
+            }
+        }
+        return image;
+    }
+
+    public static ImageImpl image(int width, int height, long seed) {
+        return new ImageImpl(argb(width, height, seed));
+    }
+
+    public static double[] values(int length, double offset, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = offset + random.nextDouble(-50, 50);
+        }
+        return values;
+    }
+
+    public static void assertRasterEquals(RasterSource expected, RasterSource actual, double delta) {
+        assertEquals(expected.width(), actual.width());
+        assertEquals(expected.height(), actual.height());
+        int length = expected.width() * expected.height();
+        double[] bulk = new double[length];
+        actual.get(0, bulk, 0, length);
+        for (int i = 0; i < length; i++) {
+            double value = expected.get(i);
+            assertEquals(value, actual.get(i), delta, "scalar at " + i);
+            assertEquals(value, bulk[i], delta, "bulk at " + i);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package de.yoyosource.data;
+
+import de.yoyosource.data.impl.DoubleStorage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RasterStatisticsTest {
+
+    private static void assertSameStatistics(RasterStatistics expected, RasterStatistics actual) {
+        assertEquals(expected.count(), actual.count());
+        assertEquals(expected.min(), actual.min());
+        assertEquals(expected.max(), actual.max());
+        assertEquals(expected.average(), actual.average(), Math.abs(expected.average()) * 1e-12);
+        assertEquals(expected.variance(), actual.variance(), expected.variance() * 1e-9);
+    }
+
+    @Test
+    void mergedChunksMatchSinglePass() {
+        double[] values = Fixtures.values(100_003, 1e6, 11);
+        RasterStatistics single = RasterStatistics.of(values, 0, values.length);
+        for (int chunk : new int[]{1, 7, 4096, 33_333}) {
+            RasterStatistics merged = RasterStatistics.EMPTY;
+            for (int offset = 0; offset < values.length; offset += chunk) {
+                merged = merged.merge(RasterStatistics.of(values, offset, Math.min(chunk, values.length - offset)));
+            }
+            assertSameStatistics(single, merged);
+        }
+    }
+
+    @Test
+    void parallelRasterMatchesSinglePass() {
+        int width = 517;
+        int height = 389;
+        double[] values = Fixtures.values(width * height, 255, 11);
+        assertSameStatistics(RasterStatistics.of(values, 0, values.length), RasterStatistics.of(new DoubleStorage(width, height, values)));
+    }
+
+    @Test
+    void mergeWithEmptyIsIdentity() {
+        RasterStatistics statistics = RasterStatistics.of(Fixtures.values(10, 3, 11), 0, 10);
+        assertSameStatistics(statistics, statistics.merge(RasterStatistics.EMPTY));
+        assertSameStatistics(statistics, RasterStatistics.EMPTY.merge(statistics));
+    }
+}
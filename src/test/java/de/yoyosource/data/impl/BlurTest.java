@@ -0,0 +1,126 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Raster;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlurTest {
+
+    private static final int WIDTH = 61;
+    private static final int HEIGHT = 43;
+
+    private static Raster raster(double[] values) {
+        return new RasterImpl(new DoubleStorage(WIDTH, HEIGHT, values));
+    }
+
+    private static double[] separable(double[] values, int radius, IntToDoubleFunction weight) {
+        double[] rows = new double[values.length];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                double sum = 0;
+                double total = 0;
+                for (int i = Math.max(0, x - radius); i <= Math.min(WIDTH - 1, x + radius); i++) {
+                    sum += values[y * WIDTH + i] * weight.applyAsDouble(i - x);
+                    total += weight.applyAsDouble(i - x);
+                }
+                rows[y * WIDTH + x] = sum / total;
+            }
+        }
+        double[] result = new double[values.length];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                double sum = 0;
+                double total = 0;
+                for (int i = Math.max(0, y - radius); i <= Math.min(HEIGHT - 1, y + radius); i++) {
+                    sum += rows[i * WIDTH + x] * weight.applyAsDouble(i - y);
+                    total += weight.applyAsDouble(i - y);
+                }
+                result[y * WIDTH + x] = sum / total;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void boxMatchesClippedReference() {
+        double[] values = Fixtures.values(WIDTH * HEIGHT, 100, 31);
+        for (int radius : new int[]{1, 4, 50}) {
+            Raster blurred = raster(values).gaussianBlur(radius, BlurMode.BOX);
+            Fixtures.assertRasterEquals(raster(separable(values, radius, k -> 1)), blurred, 1e-9);
+        }
+    }
+
+    @Test
+    void gaussianMatchesClippedReference() {
+        double[] values = Fixtures.values(WIDTH * HEIGHT, 100, 32);
+        for (int radius : new int[]{1, 3, 9}) {
+            double sigma = radius / 3.0;
+            Raster blurred = raster(values).gaussianBlur(radius, BlurMode.GAUSSIAN);
+            Fixtures.assertRasterEquals(raster(separable(values, radius, k -> Math.exp(-(k * k) / (2 * sigma * sigma)))), blurred, 1e-9);
+        }
+    }
+
+    @Test
+    void constantRasterStaysConstant() {
+        double[] values = new double[WIDTH * HEIGHT];
+        Arrays.fill(values, 42.5);
+        for (BlurMode mode : BlurMode.values()) {
+            Raster blurred = raster(values).gaussianBlur(6, mode);
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(42.5, blurred.get(i), 1e-9, mode + " at " + i);
+            }
+        }
+    }
+
+    @Test
+    void zeroAreasStayExactlyZero() {
+        double[] values = new double[WIDTH * HEIGHT];
+        double[] noise = Fixtures.values(WIDTH * HEIGHT, 0.1, 33);
+        for (int y = 0; y < HEIGHT; y++) {
+            System.arraycopy(noise, y * WIDTH, values, y * WIDTH, 20);
+        }
+        for (BlurMode mode : new BlurMode[]{BlurMode.BOX, BlurMode.FAST_GAUSSIAN}) {
+            Raster blurred = raster(values).gaussianBlur(5, mode).eval();
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 20 + 5 * 3; x < WIDTH; x++) {
+                    assertEquals(0.0, blurred.get(x, y), mode + " at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    void fastGaussianApproximatesGaussian() {
+        Raster raster = Fixtures.image(WIDTH, HEIGHT, 34).red();
+        Raster gaussian = raster.gaussianBlur(9, BlurMode.GAUSSIAN);
+        Raster fast = raster.gaussianBlur(9, BlurMode.FAST_GAUSSIAN);
+        double error = 0;
+        for (int i = 0; i < WIDTH * HEIGHT; i++) {
+            error += Math.abs(gaussian.get(i) - fast.get(i));
+        }
+        assertTrue(error / (WIDTH * HEIGHT) < 0.1, "mean error " + error / (WIDTH * HEIGHT));
+    }
+
+    @Test
+    void haloMatchesTheImpulseResponse() {
+        double[] values = new double[WIDTH * HEIGHT];
+        values[HEIGHT / 2 * WIDTH + WIDTH / 2] = 1;
+        for (BlurMode mode : new BlurMode[]{BlurMode.BOX, BlurMode.GAUSSIAN, BlurMode.FAST_GAUSSIAN}) {
+            int halo = Blur.halo(9, mode);
+            Raster blurred = raster(values).gaussianBlur(9, mode);
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    boolean inside = Math.abs(x - WIDTH / 2) <= halo && Math.abs(y - HEIGHT / 2) <= halo;
+                    assertEquals(inside, blurred.get(x, y) != 0, mode + " at " + x + "," + y);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Raster;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BufferArenaTest {
+
+    private static ImageImpl image(int red) {
+        return new ImageImpl(Fixtures.solid(16, 16, 0xFF000000 | red << 16));
+    }
+
+    @Test
+    void evaluatedRasterSurvivesLaterScopes() {
+        ImageImpl image = image(20);
+        Raster kept;
+        try (BufferArena.Scope scope = BufferArena.open()) {
+            kept = image.red().multiply(2).eval();
+            assertEquals(40.0, kept.get(5));
+        }
+        for (int i = 0; i < 4; i++) {
+            try (BufferArena.Scope scope = BufferArena.open()) {
+                Raster other = image.red().add(77).eval();
+                assertEquals(97.0, other.get(5));
+            }
+        }
+        assertEquals(40.0, kept.get(5));
+    }
+
+    @Test
+    void decodedChannelsSurviveTheirScope() {
+        ImageImpl image;
+        try (BufferArena.Scope scope = BufferArena.open()) {
+            image = image(20);
+        }
+        try (BufferArena.Scope scope = BufferArena.open()) {
+            image(99).red().eval().get(0);
+        }
+        assertEquals(20.0, image.red().get(5));
+    }
+
+    @Test
+    void scratchBuffersReturnOnClose() {
+        double[] scratch;
+        try (BufferArena.Scope scope = BufferArena.open()) {
+            scratch = BufferArena.doubles(12345);
+        }
+        assertSame(scratch, BufferArena.doubles(12345));
+    }
+
+    @Test
+    void releasedBuffersAreReused() {
+        double[] data = BufferArena.doubles(23456);
+        BufferArena.adopt(new Object(), data);
+        BufferArena.release(data);
+        assertSame(data, BufferArena.doubles(23456));
+    }
+}
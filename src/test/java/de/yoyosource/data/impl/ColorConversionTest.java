@@ -0,0 +1,89 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.ColorSpace;
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Image;
+import de.yoyosource.data.Raster;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColorConversionTest {
+
+    private static final int WIDTH = 67;
+    private static final int HEIGHT = 39;
+
+    private static void assertColorsEqual(Image expected, Image actual) {
+        Fixtures.assertRasterEquals(expected.red(), actual.red(), 1e-6);
+        Fixtures.assertRasterEquals(expected.green(), actual.green(), 1e-6);
+        Fixtures.assertRasterEquals(expected.blue(), actual.blue(), 1e-6);
+    }
+
+    @Test
+    void everySpaceRoundTrips() {
+        for (ColorSpace space : ColorSpace.values()) {
+            if (space.planes() != 3) continue;
+            ImageImpl image = Fixtures.image(WIDTH, HEIGHT, 61);
+            Raster[] planes = image.planes(space);
+            assertColorsEqual(image, ImageImpl.of(space, image.alpha(), planes));
+            Raster[] evaluated = {planes[0].eval(), planes[1].eval(), planes[2].eval()};
+            assertColorsEqual(image, ImageImpl.of(space, image.alpha(), evaluated).eval());
+        }
+    }
+
+    @Test
+    void lightnessIsRec709Luminance() {
+        ImageImpl image = Fixtures.image(WIDTH, HEIGHT, 62);
+        Raster lightness = image.lightness();
+        for (int i = 0; i < WIDTH * HEIGHT; i++) {
+            double expected = image.red().get(i) * 0.2126 + image.green().get(i) * 0.7152 + image.blue().get(i) * 0.0722;
+            assertEquals(expected, lightness.get(i), 1e-9, "at " + i);
+        }
+        Raster grey = ImageImpl.of(ColorSpace.LUMINANCE, image.alpha(), lightness).green();
+        for (int i = 0; i < WIDTH * HEIGHT; i++) {
+            assertEquals(Math.min(255, Math.max(0, lightness.get(i))), grey.get(i), 1e-9, "at " + i);
+        }
+    }
+
+    @Test
+    void fusedPlanesMatchSeparateConversions() {
+        Raster[] fused = Fixtures.image(WIDTH, HEIGHT, 63).planes(ColorSpace.HSL, ColorSpace.LAB);
+        Raster[] hsl = Fixtures.image(WIDTH, HEIGHT, 63).planes(ColorSpace.HSL);
+        Raster[] lab = Fixtures.image(WIDTH, HEIGHT, 63).planes(ColorSpace.LAB);
+        assertEquals(6, fused.length);
+        for (int i = 0; i < 3; i++) {
+            Fixtures.assertRasterEquals(hsl[i], fused[i], 0);
+            Fixtures.assertRasterEquals(lab[i], fused[3 + i], 0);
+        }
+    }
+
+    @Test
+    void knownColorsConvert() {
+        ImageImpl red = new ImageImpl(Fixtures.solid(4, 3, 0xFFFF0000));
+        Raster[] hsv = red.planes(ColorSpace.HSV);
+        assertEquals(0, hsv[0].get(5), 1e-9);
+        assertEquals(1, hsv[1].get(5), 1e-9);
+        assertEquals(1, hsv[2].get(5), 1e-9);
+        Image green = ImageImpl.of(ColorSpace.HSV, red.alpha(), hsv[0].add(120), hsv[1], hsv[2]);
+        assertEquals(0, green.red().get(5), 1e-9);
+        assertEquals(255, green.green().get(5), 1e-9);
+        assertEquals(0, green.blue().get(5), 1e-9);
+
+        Raster[] ycbcr = new ImageImpl(Fixtures.solid(4, 3, 0xFF808080)).planes(ColorSpace.YCBCR);
+        assertEquals(128, ycbcr[0].get(0), 1e-9);
+        assertEquals(128, ycbcr[1].get(0), 1e-9);
+        assertEquals(128, ycbcr[2].get(0), 1e-9);
+
+        Raster[] lab = new ImageImpl(Fixtures.solid(4, 3, 0xFFFFFFFF)).planes(ColorSpace.LAB);
+        assertEquals(100, lab[0].get(0), 1e-3);
+        assertEquals(0, lab[1].get(0), 1e-3);
+        assertEquals(0, lab[2].get(0), 1e-3);
+    }
+
+    @Test
+    void planeCountMustMatchTheSpace() {
+        ImageImpl image = Fixtures.image(WIDTH, HEIGHT, 64);
+        assertThrows(IllegalArgumentException.class, () -> ImageImpl.of(ColorSpace.LAB, image.alpha(), image.red(), image.green()));
+    }
+}
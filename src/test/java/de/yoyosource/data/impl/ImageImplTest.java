@@ -0,0 +1,49 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ImageImplTest {
+
+    private static ByteRowStorage rows(ImageImpl image) {
+        return (ByteRowStorage) ((RasterImpl) image.green()).storage();
+    }
+
+    @Test
+    void updateWritesThePatchAndKeepsThePreviousFrame() {
+        BufferedImage source = Fixtures.argb(80, 60, 4);
+        BufferedImage patch = Fixtures.solid(30, 20, 0x80102030);
+        ImageImpl first = new ImageImpl(source);
+        ImageImpl second = first.update(60, 50, patch);
+        assertSame(first, second.previous());
+        assertEquals(new Rectangle(60, 50, 20, 10), second.dirty());
+        for (int y = 0; y < 60; y++) {
+            for (int x = 0; x < 80; x++) {
+                boolean patched = x >= 60 && y >= 50;
+                assertEquals(patched ? 0x20 : source.getRGB(x, y) >> 8 & 0xFF, second.green().get(x, y), 0);
+                assertEquals(patched ? 0x80 : source.getRGB(x, y) >>> 24, second.alpha().get(x, y), 0);
+                assertEquals(source.getRGB(x, y) >> 8 & 0xFF, first.green().get(x, y), 0);
+            }
+        }
+    }
+
+    @Test
+    void updateSharesUnchangedRows() {
+        ImageImpl first = new ImageImpl(Fixtures.argb(64, 48, 6)).update(0, 0, Fixtures.solid(1, 1, 0));
+        ImageImpl second = first.update(10, 20, Fixtures.solid(5, 3, 0xFFFFFFFF));
+        for (int y = 0; y < 48; y++) {
+            if (y >= 20 && y < 23) {
+                assertNotSame(rows(first).row(y), rows(second).row(y));
+            } else {
+                assertSame(rows(first).row(y), rows(second).row(y));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Image;
+import de.yoyosource.data.Raster;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MaskedSourceTest {
+
+    private static Image masked(Image image) {
+        return image.filter((red, green, blue, alpha) -> red % 3 == 0).map(raster -> raster.add(1000));
+    }
+
+    @Test
+    void evaluatedMaskMatchesLazyMask() {
+        ImageImpl image = Fixtures.image(256, 64, 5);
+        Image lazy = masked(image);
+        Image evaluated = lazy.eval();
+        Fixtures.assertRasterEquals(lazy.red(), evaluated.red(), 0);
+        Fixtures.assertRasterEquals(lazy.green(), evaluated.green(), 0);
+        Fixtures.assertRasterEquals(image.alpha(), evaluated.alpha(), 0);
+    }
+
+    @Test
+    void bulkReadsMatchScalarReadsPerRow() {
+        ImageImpl image = Fixtures.image(256, 64, 5);
+        Raster red = masked(image).eval().red();
+        double[] row = new double[red.width()];
+        for (int y = 0; y < red.height(); y++) {
+            red.get(y * red.width(), row, 0, row.length);
+            for (int x = 0; x < row.length; x++) {
+                double source = image.red().get(x, y);
+                assertEquals(source % 3 == 0 ? source + 1000 : source, row[x]);
+                assertEquals(row[x], red.get(x, y));
+            }
+        }
+    }
+
+    @Test
+    void evaluatedMaskedImageEncodes() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new PngWriter().write(masked(Fixtures.image(256, 64, 5)).eval(), stream);
+        assertTrue(stream.size() > 0);
+    }
+
+    @Test
+    void emptyAndFullMasksEvaluate() {
+        ImageImpl image = Fixtures.image(64, 32, 9);
+        Image none = image.filter((red, green, blue, alpha) -> false).map(raster -> raster.add(1)).eval();
+        Image all = image.filter((red, green, blue, alpha) -> true).map(raster -> raster.add(1)).eval();
+        Fixtures.assertRasterEquals(image.red(), none.red(), 0);
+        Fixtures.assertRasterEquals(image.red().add(1), all.red(), 0);
+        assertTrue(none.mask().isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.Raster;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OperatorsTest {
+
+    private static final int WIDTH = 83;
+    private static final int HEIGHT = 47;
+
+    private static Raster raster(long seed) {
+        return new RasterImpl(new DoubleStorage(WIDTH, HEIGHT, Fixtures.values(WIDTH * HEIGHT, 60, seed)));
+    }
+
+    private static Raster sequential(Raster raster, List<UnaryOperator<Raster>> steps) {
+        for (UnaryOperator<Raster> step : steps) {
+            raster = step.apply(raster).eval();
+        }
+        return raster;
+    }
+
+    private static Raster fused(Raster raster, List<UnaryOperator<Raster>> steps) {
+        for (UnaryOperator<Raster> step : steps) {
+            raster = step.apply(raster);
+        }
+        return raster;
+    }
+
+    @Test
+    void fusedScalarChainMatchesSequentialApplication() {
+        Raster raster = raster(1);
+        List<UnaryOperator<Raster>> steps = List.of(
+                r -> r.add(3),
+                r -> r.multiply(2),
+                r -> r.subtract(40),
+                r -> r.divide(4),
+                r -> r.mod(7),
+                r -> r.min(5.5),
+                r -> r.max(-2),
+                r -> r.min(0, -1),
+                r -> r.max(5, 6),
+                r -> r.clamp(-0.5, 5.25));
+        Raster fused = fused(raster, steps);
+        Fixtures.assertRasterEquals(sequential(raster, steps), fused, 1e-12);
+        for (int i = 0; i < WIDTH * HEIGHT; i++) {
+            double d = ((raster.get(i) + 3) * 2 - 40) / 4 % 7;
+            d = Math.max(Math.min(d, 5.5), -2);
+            d = d < 0 ? -1 : d;
+            d = d > 5 ? 6 : d;
+            assertEquals(Math.min(Math.max(d, -0.5), 5.25), fused.get(i), 1e-12, "at " + i);
+        }
+    }
+
+    @Test
+    void fusedRasterChainMatchesSequentialApplication() {
+        Raster raster = raster(2);
+        Raster other = raster(3);
+        Raster low = raster(4).subtract(80);
+        Raster high = raster(5).add(80);
+        List<UnaryOperator<Raster>> steps = List.of(
+                r -> r.add(other),
+                r -> r.multiply(other),
+                r -> r.subtract(other),
+                r -> r.divide(other),
+                r -> r.mod(other),
+                r -> r.min(other),
+                r -> r.max(low),
+                r -> r.clamp(low, high));
+        Raster fused = fused(raster, steps);
+        Fixtures.assertRasterEquals(sequential(raster, steps), fused, 1e-12);
+        for (int i = 0; i < WIDTH * HEIGHT; i++) {
+            double o = other.get(i);
+            double d = ((raster.get(i) + o) * o - o) / o % o;
+            d = Math.max(Math.min(d, o), low.get(i));
+            assertEquals(Math.min(Math.max(d, low.get(i)), high.get(i)), fused.get(i), 1e-12, "at " + i);
+        }
+    }
+
+    @Test
+    void mixedChainWithInvertMatchesSequentialApplication() {
+        Raster raster = raster(6);
+        Raster other = raster(7).eval(Precision.FLOAT);
+        List<UnaryOperator<Raster>> steps = List.of(
+                r -> r.multiply(0.5),
+                r -> r.add(other.multiply(2)),
+                r -> r.invert(),
+                r -> r.subtract(other.divide(3)),
+                r -> r.clamp(0, 255));
+        Raster fused = fused(raster, steps);
+        Raster sequential = sequential(raster, steps);
+        Fixtures.assertRasterEquals(sequential, fused, 1e-9);
+        assertEquals(sequential.min(), fused.min(), 1e-9);
+        assertEquals(sequential.max(), fused.max(), 1e-9);
+    }
+}
@@ -0,0 +1,62 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.PngFilter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.zip.Adler32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PngWriterTest {
+
+    private static final int[] LEVELS = {0, 1, 9};
+
+    private static BufferedImage roundTrip(PngWriter writer, ImageImpl image) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writer.write(image, stream);
+        return ImageIO.read(new ByteArrayInputStream(stream.toByteArray()));
+    }
+
+    @Test
+    void everyFilterAndLevelDecodesToTheSamePixels() throws IOException {
+        BufferedImage source = Fixtures.argb(320, 240, 7);
+        ImageImpl image = new ImageImpl(source);
+        for (PngFilter filter : PngFilter.values()) {
+            for (int level : LEVELS) {
+                BufferedImage decoded = roundTrip(new PngWriter(level, filter), image);
+                assertEquals(source.getWidth(), decoded.getWidth());
+                assertEquals(source.getHeight(), decoded.getHeight());
+                for (int y = 0; y < source.getHeight(); y++) {
+                    for (int x = 0; x < source.getWidth(); x++) {
+                        assertEquals(source.getRGB(x, y), decoded.getRGB(x, y), filter + " level " + level + " at " + x + "," + y);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void combinedAdlerMatchesSinglePass() {
+        byte[] data = new byte[1 << 20];
+        new SplittableRandom(3).nextBytes(data);
+        Adler32 whole = new Adler32();
+        whole.update(data);
+        for (int segment : new int[]{1, 5552, 65521, 1 << 18, 300_000}) {
+            long adler = 1;
+            for (int offset = 0; offset < data.length; offset += segment) {
+                int length = Math.min(segment, data.length - offset);
+                Adler32 part = new Adler32();
+                part.update(data, offset, length);
+                adler = PngWriter.combine(adler, part.getValue(), length);
+            }
+            assertEquals(whole.getValue(), adler, "segment " + segment);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.Raster;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RasterFileTest {
+
+    @TempDir
+    Path directory;
+
+    private File written(Precision precision) throws IOException {
+        File file = directory.resolve(precision + ".bin").toFile();
+        RasterFile.write(Fixtures.image(45, 23, 30).red(), precision, file);
+        return file;
+    }
+
+    private static void corrupt(File file, int offset, int value) throws IOException {
+        try (RandomAccessFile access = new RandomAccessFile(file, "rw")) {
+            access.seek(offset);
+            access.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array());
+        }
+    }
+
+    @Test
+    void everyPrecisionRoundTrips() throws IOException {
+        Raster source = Fixtures.image(45, 23, 30).red();
+        for (Precision precision : Precision.values()) {
+            Fixtures.assertRasterEquals(source, RasterFile.open(written(precision)), 0);
+        }
+    }
+
+    @Test
+    void corruptHeadersAreRejected() throws IOException {
+        File magic = written(Precision.BYTE);
+        corrupt(magic, 0, 0x12345678);
+        assertThrows(IOException.class, () -> RasterFile.open(magic));
+
+        File version = written(Precision.SHORT);
+        corrupt(version, 4, 99);
+        assertThrows(IOException.class, () -> RasterFile.open(version));
+
+        File size = written(Precision.FLOAT);
+        corrupt(size, 8, -3);
+        assertThrows(IOException.class, () -> RasterFile.open(size));
+
+        File precision = written(Precision.DOUBLE);
+        corrupt(precision, 16, Precision.values().length);
+        assertThrows(IOException.class, () -> RasterFile.open(precision));
+    }
+
+    @Test
+    void truncatedFilesAreRejected() throws IOException {
+        File file = written(Precision.DOUBLE);
+        try (RandomAccessFile access = new RandomAccessFile(file, "rw")) {
+            access.setLength(file.length() - 8);
+        }
+        assertThrows(IOException.class, () -> RasterFile.open(file));
+        try (RandomAccessFile access = new RandomAccessFile(file, "rw")) {
+            access.setLength(10);
+        }
+        assertThrows(IOException.class, () -> RasterFile.open(file));
+    }
+}
@@ -0,0 +1,33 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Raster;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RasterImplTest {
+
+    @Test
+    void percentileNormalizeOfZeroPercentileKeepsValues() {
+        Raster black = new RasterImpl(new DoubleStorage(64, 32));
+        assertSame(black, black.normalize(0.9));
+        double[] values = new double[64 * 32];
+        values[5] = 200;
+        values[700] = 17;
+        Raster raster = new RasterImpl(new DoubleStorage(64, 32, values));
+        assertSame(raster, raster.normalize(0));
+        Fixtures.assertRasterEquals(raster, raster.normalize(0).eval(), 0);
+    }
+
+    @Test
+    void percentileNormalizeScalesAndSaturates() {
+        Raster raster = Fixtures.image(64, 32, 12).blue();
+        double value = raster.percentile(0.5);
+        Raster normalized = raster.normalize(0.5).eval();
+        for (int i = 0; i < 64 * 32; i++) {
+            assertEquals(Math.min(raster.get(i) / value, 1), normalized.get(i), 1e-12);
+        }
+    }
+}
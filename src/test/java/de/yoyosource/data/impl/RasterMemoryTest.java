@@ -0,0 +1,36 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Raster;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RasterMemoryTest {
+
+    private static long scalarHits(Raster raster) {
+        RasterMemory.resetCounters();
+        for (int y = 0; y < raster.height(); y++) {
+            for (int x = 0; x < raster.width(); x++) {
+                raster.get(x, y);
+            }
+        }
+        return RasterMemory.counters().hits();
+    }
+
+    @Test
+    void scalarReadsOfEvaluatedRastersCountHits() {
+        Raster raster = Fixtures.image(64, 48, 1).red().multiply(3).eval();
+        raster.get(0);
+        assertTrue(scalarHits(raster) >= raster.height());
+    }
+
+    @Test
+    void scalarReadsOfBlurredRastersCountHits() {
+        Raster raster = Fixtures.image(64, 48, 1).red().gaussianBlur(2, BlurMode.BOX);
+        raster.get(0);
+        assertTrue(scalarHits(raster) >= raster.height());
+        assertTrue(scalarHits(raster.subRaster(8, 8, 32, 16)) >= 16);
+    }
+}
@@ -0,0 +1,105 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Boundary;
+import de.yoyosource.data.ColorSpace;
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Raster;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RegionSourceTest {
+
+    private static final int WIDTH = 71;
+    private static final int HEIGHT = 53;
+    private static final int[][] REGIONS = {
+            {0, 0, 9, 7},
+            {WIDTH - 13, HEIGHT - 4, 13, 4},
+            {20, 15, 31, 22},
+            {0, 30, WIDTH, 5},
+            {WIDTH - 1, 0, 1, HEIGHT}};
+
+    private static Raster raster(long seed) {
+        return new RasterImpl(new DoubleStorage(WIDTH, HEIGHT, Fixtures.values(WIDTH * HEIGHT, 100, seed)));
+    }
+
+    private static Raster crop(Raster raster, int x, int y, int width, int height) {
+        double[] values = new double[width * height];
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                values[j * width + i] = raster.get(x + i, y + j);
+            }
+        }
+        return new RasterImpl(new DoubleStorage(width, height, values));
+    }
+
+    private static void assertRegions(Raster full, Raster lazy) {
+        Raster expected = full.eval();
+        for (int[] region : REGIONS) {
+            Fixtures.assertRasterEquals(crop(expected, region[0], region[1], region[2], region[3]), lazy.subRaster(region[0], region[1], region[2], region[3]), 1e-9);
+        }
+    }
+
+    @Test
+    void blurRegionsMatchTheFullBlur() {
+        Raster raster = raster(51);
+        for (BlurMode mode : new BlurMode[]{BlurMode.BOX, BlurMode.GAUSSIAN, BlurMode.FAST_GAUSSIAN}) {
+            assertRegions(raster.gaussianBlur(7, mode), raster.gaussianBlur(7, mode));
+            Raster evaluated = raster.gaussianBlur(7, mode);
+            evaluated.get(0);
+            assertRegions(raster.gaussianBlur(7, mode), evaluated);
+        }
+    }
+
+    @Test
+    void stencilRegionsKeepTheImageBoundary() {
+        Raster raster = raster(52);
+        for (Boundary boundary : Boundary.values()) {
+            assertRegions(raster.stencil(Stencils.sharpen(), boundary, 3), raster.stencil(Stencils.sharpen(), boundary, 3));
+            assertRegions(raster.stencil(Stencils.sobel(), boundary, 3), raster.stencil(Stencils.sobel(), boundary, 3));
+        }
+    }
+
+    @Test
+    void operatorChainRegionsMatchTheFullChain() {
+        Raster raster = raster(53);
+        Raster other = raster(54);
+        Raster chain = raster.multiply(other).divide(100).add(other.gaussianBlur(3, BlurMode.GAUSSIAN))
+                .clamp(raster.subtract(20), other.add(20))
+                .stencil(Stencils.laplacian(), Boundary.WRAP)
+                .max(0);
+        assertRegions(chain, chain);
+    }
+
+    @Test
+    void nestedRegionsComposeOffsets() {
+        Raster raster = raster(55).add(1).gaussianBlur(2, BlurMode.BOX);
+        Raster expected = raster.eval();
+        Raster outer = raster.subRaster(10, 8, 40, 30);
+        Raster inner = outer.subRaster(5, 7, 20, 11).multiply(2);
+        Raster innermost = inner.subRaster(3, 2, 6, 5);
+        Fixtures.assertRasterEquals(crop(expected, 15, 15, 20, 11).multiply(2), inner, 1e-9);
+        Fixtures.assertRasterEquals(crop(expected, 18, 17, 6, 5).multiply(2), innermost, 1e-9);
+    }
+
+    @Test
+    void regionsAreClippedToTheRaster() {
+        Raster raster = raster(56).stencil(Stencils.sharpen(), Boundary.REFLECT);
+        Raster clipped = raster.subRaster(-3, -2, 10, 10);
+        assertEquals(7, clipped.width());
+        assertEquals(8, clipped.height());
+        Fixtures.assertRasterEquals(crop(raster.eval(), 0, 0, 7, 8), clipped, 1e-9);
+        Raster beyond = raster.subRaster(WIDTH - 4, HEIGHT - 2, 10, 10);
+        assertEquals(4, beyond.width());
+        assertEquals(2, beyond.height());
+        Fixtures.assertRasterEquals(crop(raster.eval(), WIDTH - 4, HEIGHT - 2, 4, 2), beyond, 1e-9);
+    }
+
+    @Test
+    void colourPlaneRegionsMatchTheFullPlane() {
+        ImageImpl image = Fixtures.image(WIDTH, HEIGHT, 57);
+        assertRegions(image.lightness(), image.lightness());
+        assertRegions(image.planes(ColorSpace.LAB)[1], image.planes(ColorSpace.LAB)[1]);
+    }
+}
@@ -0,0 +1,127 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Boundary;
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.Stencil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StencilTest {
+
+    private static final double CONSTANT = 7;
+    private static final double[][] ASYMMETRIC = {
+            {0, 1, 0, 0, 2},
+            {0, 0, 0, 3, 0},
+            {-1, 0, 0.5, 0, 0},
+            {0, 0, 0, 0, 0},
+            {4, 0, 0, -2, 1}};
+
+    private static Raster raster(int width, int height, long seed) {
+        return new RasterImpl(new DoubleStorage(width, height, Fixtures.values(width * height, 0, seed)));
+    }
+
+    private static double sample(Raster raster, int x, int y, Boundary boundary) {
+        int width = raster.width();
+        int height = raster.height();
+        if (x >= 0 && x < width && y >= 0 && y < height) return raster.get(x, y);
+        switch (boundary) {
+            case REFLECT:
+                return raster.get(reflect(x, width), reflect(y, height));
+            case WRAP:
+                return raster.get(Math.floorMod(x, width), Math.floorMod(y, height));
+            case CONSTANT:
+                return CONSTANT;
+            default:
+                return raster.get(Math.min(Math.max(x, 0), width - 1), Math.min(Math.max(y, 0), height - 1));
+        }
+    }
+
+    private static int reflect(int value, int size) {
+        int reflected = Math.floorMod(value, 2 * size);
+        return reflected < size ? reflected : 2 * size - 1 - reflected;
+    }
+
+    private static Raster convolve(Raster raster, double[][] weights, Boundary boundary) {
+        int width = raster.width();
+        int height = raster.height();
+        int radius = weights.length / 2;
+        double[] values = new double[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double sum = 0;
+                for (int dy = -radius; dy <= radius; dy++) {
+                    for (int dx = -radius; dx <= radius; dx++) {
+                        sum += weights[dy + radius][dx + radius] * sample(raster, x + dx, y + dy, boundary);
+                    }
+                }
+                values[y * width + x] = sum;
+            }
+        }
+        return new RasterImpl(new DoubleStorage(width, height, values));
+    }
+
+    private static void assertConvolution(Raster raster, double[][] weights) {
+        Stencil stencil = Stencils.convolution(weights);
+        for (Boundary boundary : Boundary.values()) {
+            Raster expected = convolve(raster, weights, boundary);
+            Fixtures.assertRasterEquals(expected, raster.stencil(stencil, boundary, CONSTANT), 1e-9);
+            Fixtures.assertRasterEquals(expected, raster.stencil(stencil, boundary, CONSTANT).eval(), 1e-9);
+        }
+    }
+
+    @Test
+    void convolutionsMatchNaiveReferenceForEveryBoundary() {
+        Raster raster = raster(37, 23, 41);
+        assertConvolution(raster, new double[][]{{0, -1, 0}, {-1, 5, -1}, {0, -1, 0}});
+        assertConvolution(raster, new double[][]{{0, 1, 0}, {1, -4, 1}, {0, 1, 0}});
+        assertConvolution(raster, ASYMMETRIC);
+    }
+
+    @Test
+    void rastersSmallerThanTheKernelUseRepeatedBoundaries() {
+        assertConvolution(raster(2, 3, 42), ASYMMETRIC);
+        assertConvolution(raster(1, 1, 43), ASYMMETRIC);
+    }
+
+    @Test
+    void namedStencilsMatchTheirKernels() {
+        Raster raster = raster(29, 17, 44);
+        Fixtures.assertRasterEquals(convolve(raster, new double[][]{{0, -1, 0}, {-1, 5, -1}, {0, -1, 0}}, Boundary.CLAMP), raster.stencil(Stencils.sharpen()), 1e-9);
+        Fixtures.assertRasterEquals(convolve(raster, new double[][]{{0, 1, 0}, {1, -4, 1}, {0, 1, 0}}, Boundary.CLAMP), raster.stencil(Stencils.laplacian()), 1e-9);
+        Raster x = raster.stencil(Stencils.sobelX(), Boundary.REFLECT);
+        Raster y = raster.stencil(Stencils.sobelY(), Boundary.REFLECT);
+        Raster sobel = raster.stencil(Stencils.sobel(), Boundary.REFLECT);
+        for (int i = 0; i < raster.width() * raster.height(); i++) {
+            assertEquals(Math.hypot(x.get(i), y.get(i)), sobel.get(i), 1e-9, "at " + i);
+        }
+    }
+
+    @Test
+    void edgesThresholdCentralDifferences() {
+        Raster raster = raster(31, 19, 45);
+        Raster edges = raster.edges(900);
+        for (int y = 0; y < raster.height(); y++) {
+            for (int x = 0; x < raster.width(); x++) {
+                double dx = sample(raster, x + 1, y, Boundary.CLAMP) - sample(raster, x - 1, y, Boundary.CLAMP);
+                double dy = sample(raster, x, y + 1, Boundary.CLAMP) - sample(raster, x, y - 1, Boundary.CLAMP);
+                assertEquals(dx * dx + dy * dy > 900 ? 1.0 : 0.0, edges.get(x, y), "at " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void chainedStencilsMatchSequentialEvaluation() {
+        Raster raster = raster(45, 33, 46);
+        Raster chained = raster.multiply(0.5).add(3)
+                .stencil(Stencils.sharpen(), Boundary.REFLECT)
+                .stencil(Stencils.laplacian(), Boundary.WRAP)
+                .stencil(Stencils.convolution(ASYMMETRIC), Boundary.CONSTANT, CONSTANT);
+        Raster sequential = raster.multiply(0.5).add(3).eval()
+                .stencil(Stencils.sharpen(), Boundary.REFLECT).eval()
+                .stencil(Stencils.laplacian(), Boundary.WRAP).eval()
+                .stencil(Stencils.convolution(ASYMMETRIC), Boundary.CONSTANT, CONSTANT).eval();
+        Fixtures.assertRasterEquals(sequential, chained, 1e-9);
+    }
+}
@@ -0,0 +1,61 @@
+package de.yoyosource.data.impl;
+
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Image;
+import de.yoyosource.data.RasterStatistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TiledProcessorTest {
+
+    private static final UnaryOperator<Image> SHARPEN = image -> image.map(raster -> raster.stencil(Stencils.sharpen()).clamp(0, 255));
+
+    @TempDir
+    Path directory;
+
+    private File input(BufferedImage image) throws IOException {
+        File file = directory.resolve("input.png").toFile();
+        ImageIO.write(image, "png", file);
+        return file;
+    }
+
+    @Test
+    void tilesWithHaloMatchWholeImage() throws IOException {
+        BufferedImage source = Fixtures.argb(203, 141, 13);
+        Image whole = SHARPEN.apply(new ImageImpl(source));
+        BufferedImage expected = PixelCodec.pack(source.getWidth(), source.getHeight(), whole.red(), whole.green(), whole.blue(), whole.alpha());
+        BufferedImageSink sink = new BufferedImageSink();
+        try (TiledProcessor processor = new TiledProcessor(input(source), 37, 1)) {
+            processor.process(SHARPEN, sink);
+        }
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int x = 0; x < source.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), sink.image().getRGB(x, y), "at " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void reductionMatchesWholeImage() throws IOException {
+        BufferedImage source = Fixtures.argb(150, 90, 17);
+        RasterStatistics expected = new ImageImpl(source).green().multiply(2).statistics();
+        RasterStatistics actual;
+        try (TiledProcessor processor = new TiledProcessor(input(source), 32, 2)) {
+            actual = processor.reduce(image -> image.green().multiply(2));
+        }
+        assertEquals(expected.count(), actual.count());
+        assertEquals(expected.min(), actual.min());
+        assertEquals(expected.max(), actual.max());
+        assertEquals(expected.average(), actual.average(), 1e-9);
+        assertEquals(expected.variance(), actual.variance(), 1e-6);
+    }
+}
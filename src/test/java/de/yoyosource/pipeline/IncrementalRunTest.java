@@ -0,0 +1,49 @@
+package de.yoyosource.pipeline;
+
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Image;
+import de.yoyosource.data.impl.ImageImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalRunTest {
+
+    private static final String PIPELINE = String.join("\n",
+            "process {",
+            "  soft = input -> gaussianBlur 2 GAUSSIAN",
+            "  return input -> sharpen -> add soft -> normalize -> multiply 255",
+            "}",
+            "process {",
+            "  return input -> lightness -> laplacian REFLECT -> invert",
+            "}");
+
+    @Test
+    void incrementalFramesMatchFullRuns() {
+        Pipeline pipeline = Pipeline.compile(PIPELINE);
+        IncrementalRun incremental = pipeline.incremental();
+        SplittableRandom random = new SplittableRandom(8);
+        ImageImpl frame = Fixtures.image(120, 90, 2);
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                int width = 1 + random.nextInt(30);
+                int height = 1 + random.nextInt(30);
+                frame = frame.update(random.nextInt(120), random.nextInt(90), Fixtures.argb(width, height, i));
+            }
+            List<Image> actual = incremental.run(frame);
+            List<Image> expected = pipeline.run(frame);
+            if (i > 0) assertTrue(incremental.pixels() < (long) 120 * 90 * pipeline.nodes(), "frame " + i);
+            assertEquals(expected.size(), actual.size());
+            for (int output = 0; output < expected.size(); output++) {
+                Fixtures.assertRasterEquals(expected.get(output).red(), actual.get(output).red(), 1e-9);
+                Fixtures.assertRasterEquals(expected.get(output).green(), actual.get(output).green(), 1e-9);
+                Fixtures.assertRasterEquals(expected.get(output).blue(), actual.get(output).blue(), 1e-9);
+                Fixtures.assertRasterEquals(expected.get(output).alpha(), actual.get(output).alpha(), 1e-9);
+            }
+        }
+    }
+}
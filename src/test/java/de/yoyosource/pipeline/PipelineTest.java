@@ -0,0 +1,83 @@
+package de.yoyosource.pipeline;
+
+import de.yoyosource.data.BlurMode;
+import de.yoyosource.data.Boundary;
+import de.yoyosource.data.Fixtures;
+import de.yoyosource.data.Image;
+import de.yoyosource.data.Precision;
+import de.yoyosource.data.Raster;
+import de.yoyosource.data.impl.BufferArena;
+import de.yoyosource.data.impl.ImageImpl;
+import de.yoyosource.data.impl.Stencils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelineTest {
+
+    private static final String SHARED = String.join("\n",
+            "process {",
+            "  base = input -> multiply 2 -> add 1",
+            "  return input -> add base -> subtract base",
+            "}");
+
+    private static void assertImageEquals(Image expected, Image actual) {
+        Fixtures.assertRasterEquals(expected.red(), actual.red(), 1e-9);
+        Fixtures.assertRasterEquals(expected.green(), actual.green(), 1e-9);
+        Fixtures.assertRasterEquals(expected.blue(), actual.blue(), 1e-9);
+        Fixtures.assertRasterEquals(expected.alpha(), actual.alpha(), 1e-9);
+    }
+
+    @Test
+    void compiledPipelineMatchesJavaPipeline() {
+        ImageImpl image = Fixtures.image(97, 61, 3);
+        Pipeline pipeline = Pipeline.compile(String.join("\n",
+                "process {",
+                "  light = input -> lightness -> normalize",
+                "  return input -> multiply light -> clamp 0 255",
+                "}",
+                "process {",
+                "  return input -> red -> gaussianBlur 2 GAUSSIAN -> sharpen REFLECT -> eval FLOAT",
+                "}"));
+        List<Image> outputs = pipeline.run(image);
+        assertEquals(2, outputs.size());
+
+        Raster light = image.lightness().normalize();
+        assertImageEquals(image.map(raster -> raster.multiply(light).clamp(0, 255)), outputs.get(0));
+        Raster red = image.red().gaussianBlur(2, BlurMode.GAUSSIAN).stencil(Stencils.sharpen(), Boundary.REFLECT).eval(Precision.FLOAT);
+        assertImageEquals(new ImageImpl(red, red, red, image.alpha()), outputs.get(1));
+    }
+
+    @Test
+    void commonSubexpressionsAreShared() {
+        Pipeline duplicated = Pipeline.compile(String.join("\n",
+                "process {",
+                "  first = input -> multiply 2 -> add 1",
+                "  second = input -> multiply 2 -> add 1",
+                "  return input -> add first -> subtract second",
+                "}"));
+        assertEquals(1, duplicated.processes());
+        assertEquals(Pipeline.compile(SHARED).nodes(), duplicated.nodes());
+    }
+
+    @Test
+    void sharedIntermediatesReturnToTheArena() {
+        ImageImpl image = Fixtures.image(128, 64, 21);
+        Pipeline pipeline = Pipeline.compile(SHARED);
+        BufferArena.clear();
+        Image first = pipeline.run(image).get(0);
+        assertTrue(BufferArena.pooledBytes() >= 3L * image.width() * image.height() * Double.BYTES);
+        pipeline.run(Fixtures.image(128, 64, 22));
+        assertImageEquals(image, first);
+    }
+
+    @Test
+    void syntaxErrorsReportTheLine() {
+        PipelineException exception = assertThrows(PipelineException.class, () -> Pipeline.compile("process {\n  return input -> blur 3\n}"));
+        assertTrue(exception.getMessage().contains("2"), exception.getMessage());
+    }
+}
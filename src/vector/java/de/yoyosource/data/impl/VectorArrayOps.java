@@ -0,0 +1,188 @@
+package de.yoyosource.data.impl;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+final class VectorArrayOps implements ArrayOps {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    VectorArrayOps() {
+    }
+
+    @Override
+    public boolean vectorized() {
+        return true;
+    }
+
+    @Override
+    public void add(double[] values, int offset, int length, double value) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).add(value).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.add(values, offset + i, length - i, value);
+    }
+
+    @Override
+    public void subtract(double[] values, int offset, int length, double value) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).sub(value).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.subtract(values, offset + i, length - i, value);
+    }
+
+    @Override
+    public void multiply(double[] values, int offset, int length, double value) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).mul(value).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.multiply(values, offset + i, length - i, value);
+    }
+
+    @Override
+    public void divide(double[] values, int offset, int length, double value) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).div(value).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.divide(values, offset + i, length - i, value);
+    }
+
+    @Override
+    public void clamp(double[] values, int offset, int length, double min, double max) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).max(min).min(max).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.clamp(values, offset + i, length - i, min, max);
+    }
+
+    @Override
+    public void min(double[] values, int offset, int length, double value) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).min(value).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.min(values, offset + i, length - i, value);
+    }
+
+    @Override
+    public void minCutOff(double[] values, int offset, int length, double value, double cutOffValue) {
+        DoubleVector cutOff = DoubleVector.broadcast(SPECIES, cutOffValue);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector vector = DoubleVector.fromArray(SPECIES, values, offset + i);
+            vector.blend(cutOff, vector.compare(VectorOperators.LT, value)).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.minCutOff(values, offset + i, length - i, value, cutOffValue);
+    }
+
+    @Override
+    public void max(double[] values, int offset, int length, double value) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).max(value).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.max(values, offset + i, length - i, value);
+    }
+
+    @Override
+    public void maxCutOff(double[] values, int offset, int length, double value, double cutOffValue) {
+        DoubleVector cutOff = DoubleVector.broadcast(SPECIES, cutOffValue);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector vector = DoubleVector.fromArray(SPECIES, values, offset + i);
+            vector.blend(cutOff, vector.compare(VectorOperators.GT, value)).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.maxCutOff(values, offset + i, length - i, value, cutOffValue);
+    }
+
+    @Override
+    public void invert(double[] values, int offset, int length, double max) {
+        DoubleVector maximum = DoubleVector.broadcast(SPECIES, max);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            maximum.sub(DoubleVector.fromArray(SPECIES, values, offset + i)).intoArray(values, offset + i);
+        }
+        ScalarArrayOps.INSTANCE.invert(values, offset + i, length - i, max);
+    }
+
+    @Override
+    public void add(double[] values, int offset, double[] operand, int length) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).add(DoubleVector.fromArray(SPECIES, operand, i)).intoArray(values, offset + i);
+        }
+        for (; i < length; i++) values[offset + i] = values[offset + i] + operand[i];
+    }
+
+    @Override
+    public void subtract(double[] values, int offset, double[] operand, int length) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).sub(DoubleVector.fromArray(SPECIES, operand, i)).intoArray(values, offset + i);
+        }
+        for (; i < length; i++) values[offset + i] = values[offset + i] - operand[i];
+    }
+
+    @Override
+    public void multiply(double[] values, int offset, double[] operand, int length) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).mul(DoubleVector.fromArray(SPECIES, operand, i)).intoArray(values, offset + i);
+        }
+        for (; i < length; i++) values[offset + i] = values[offset + i] * operand[i];
+    }
+
+    @Override
+    public void divide(double[] values, int offset, double[] operand, int length) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).div(DoubleVector.fromArray(SPECIES, operand, i)).intoArray(values, offset + i);
+        }
+        for (; i < length; i++) values[offset + i] = values[offset + i] / operand[i];
+    }
+
+    @Override
+    public void min(double[] values, int offset, double[] operand, int length) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).min(DoubleVector.fromArray(SPECIES, operand, i)).intoArray(values, offset + i);
+        }
+        for (; i < length; i++) values[offset + i] = Math.min(values[offset + i], operand[i]);
+    }
+
+    @Override
+    public void max(double[] values, int offset, double[] operand, int length) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, values, offset + i).max(DoubleVector.fromArray(SPECIES, operand, i)).intoArray(values, offset + i);
+        }
+        for (; i < length; i++) values[offset + i] = Math.max(values[offset + i], operand[i]);
+    }
+
+    @Override
+    public double reduceMin(double[] values, int offset, int length, double identity) {
+        DoubleVector min = DoubleVector.broadcast(SPECIES, identity);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            min = min.min(DoubleVector.fromArray(SPECIES, values, offset + i));
+        }
+        return ScalarArrayOps.INSTANCE.reduceMin(values, offset + i, length - i, min.reduceLanes(VectorOperators.MIN));
+    }
+
+    @Override
+    public double reduceMax(double[] values, int offset, int length, double identity) {
+        DoubleVector max = DoubleVector.broadcast(SPECIES, identity);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += LANES) {
+            max = max.max(DoubleVector.fromArray(SPECIES, values, offset + i));
+        }
+        return ScalarArrayOps.INSTANCE.reduceMax(values, offset + i, length - i, max.reduceLanes(VectorOperators.MAX));
+    }
+}